@@ -0,0 +1,60 @@
+package org.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.demo.cache.LocalCacheInvalidationBus;
+import org.demo.cache.ProductCache;
+import org.demo.cache.ProductQueryCache;
+import org.demo.cache.SuggestionCache;
+import org.demo.client.HedgedReads;
+import org.demo.config.JacksonConfig;
+import org.demo.metrics.ProductMetrics;
+import org.demo.repository.ProductRepository;
+import org.demo.service.ProductLookupBatcher;
+import org.demo.service.ProductNameGuard;
+import org.demo.service.ProductReviewService;
+import org.demo.service.ProductService;
+import org.demo.service.ProductWritePipeline;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Wires the service layer by hand with the same settings as application.properties.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static ProductService productService(ProductRepository repository, boolean cacheQueries) {
+        ProductNameGuard nameGuard = new ProductNameGuard(repository, 500, 10_000, Duration.ofSeconds(30),
+                Duration.ofSeconds(30), Duration.ofSeconds(1));
+        ProductCache productCache = new ProductCache(new LocalCacheInvalidationBus(), 10_000, Duration.ofSeconds(60),
+                Duration.ofHours(1));
+        // A zero entry cap keeps every result out of the cache, which measures the uncached path
+        ProductQueryCache queryCache = new ProductQueryCache(DataSize.ofMegabytes(64),
+                cacheQueries ? DataSize.ofMegabytes(1) : DataSize.ofBytes(0), Duration.ofMinutes(5), 10, Duration.ofHours(1),
+                Duration.ofSeconds(1));
+        SuggestionCache suggestionCache = new SuggestionCache(5_000, Duration.ofSeconds(10));
+        // Embedded review storage never touches the review repository
+        ProductReviewService reviewService = new ProductReviewService(null, repository, productCache, queryCache,
+                "embedded", Duration.ofSeconds(1), 1000);
+        HedgedReads hedgedReads = new HedgedReads(false, Duration.ofMillis(50), 16, new SimpleMeterRegistry());
+        ProductLookupBatcher lookupBatcher = new ProductLookupBatcher(repository, hedgedReads, Duration.ofNanos(200_000),
+                100, new SimpleMeterRegistry());
+        return new ProductService(repository, new ProductWritePipeline(), nameGuard, productCache, queryCache,
+                suggestionCache, reviewService, new ProductMetrics(new SimpleMeterRegistry()), hedgedReads,
+                lookupBatcher, Duration.ofMinutes(5), 3);
+    }
+
+    /**
+     * The ObjectMapper Spring Boot builds for the application, including the Product field filter.
+     */
+    static ObjectMapper objectMapper() {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new JacksonConfig().productFieldsFilter().customize(builder);
+        return builder.build();
+    }
+}
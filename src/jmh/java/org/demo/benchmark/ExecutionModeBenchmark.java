@@ -0,0 +1,101 @@
+package org.demo.benchmark;
+
+import org.demo.config.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of {@code concurrency} simultaneous requests, each waiting {@code latencyMillis} on a
+ * simulated Elasticsearch call, under the three execution modes:
+ * <ul>
+ *     <li>{@code platform} - blocking calls on a 200-thread pool, Tomcat's default maximum</li>
+ *     <li>{@code virtual} - blocking calls, one virtual thread per request (Java 21+)</li>
+ *     <li>{@code reactive} - the wait holds no thread, as with the reactive repository</li>
+ * </ul>
+ * The score is the time until the last request of the burst completes, i.e. the tail latency
+ * seen at that concurrency; throughput is {@code concurrency / score}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final int PLATFORM_POOL_SIZE = 200;
+
+    @Param({"platform", "virtual", "reactive"})
+    public String mode;
+
+    @Param({"200", "2000", "10000"})
+    public int concurrency;
+
+    @Param({"20"})
+    public int latencyMillis;
+
+    private ExecutorService executor;
+    private ScheduledExecutorService timer;
+
+    @Setup
+    public void setUp() {
+        switch (mode) {
+            case "platform" -> executor = Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+            case "virtual" -> executor = VirtualThreads.newPerTaskExecutor();
+            // Stands in for the client's I/O threads completing responses
+            case "reactive" -> timer = Executors.newSingleThreadScheduledExecutor();
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Object burst() {
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            requests[i] = executor != null
+                    ? CompletableFuture.runAsync(this::blockingCall, executor)
+                    : nonBlockingCall();
+        }
+        return CompletableFuture.allOf(requests).join();
+    }
+
+    private CompletableFuture<Void> nonBlockingCall() {
+        CompletableFuture<Void> response = new CompletableFuture<>();
+        timer.schedule(() -> response.complete(null), latencyMillis, TimeUnit.MILLISECONDS);
+        return response;
+    }
+
+    private void blockingCall() {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.demo.benchmark;
+
+import org.demo.dto.ExportStatus;
+import org.demo.export.ExportFormat;
+import org.demo.model.Product;
+import org.demo.repository.ProductRepository;
+import org.demo.service.ProductExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A full export of a stub catalog to a temporary directory: serialization, compression and
+ * writes, without Elasticsearch. Compare one slice with several to see how far the parallel
+ * slices scale before the disk, not the CPU, sets the pace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"50000"})
+    public int catalogSize;
+
+    @Param({"20"})
+    public int maxReviews;
+
+    @Param({"NDJSON", "CSV"})
+    public ExportFormat format;
+
+    @Param({"1", "4"})
+    public int slices;
+
+    @Param({"1", "6"})
+    public int compressionLevel;
+
+    private ProductRepository repository;
+    private Path directory;
+    private ProductExportService exportService;
+
+    @Setup
+    public void setUp() {
+        List<Product> catalog = new ProductFixtures(42).catalog(catalogSize, maxReviews);
+        repository = StubProductRepository.create(catalog);
+        // Converts the catalog to source documents before the first measurement
+        repository.findSourcePageAfter("stub-pit", Duration.ZERO, 0, 1, null, 1, null);
+    }
+
+    @Setup(Level.Invocation)
+    public void newExportService() throws IOException {
+        // Export ids have a one-second resolution, so every run gets its own directory
+        directory = Files.createTempDirectory("export-benchmark");
+        exportService = new ProductExportService(repository, BenchmarkSupport.objectMapper(), directory,
+                slices, 1000, Duration.ofMinutes(5), 10, compressionLevel);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteExport() throws Exception {
+        exportService.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public ExportStatus export() throws InterruptedException {
+        exportService.start(format);
+        ExportStatus status = exportService.status();
+        while ("running".equals(status.getState())) {
+            Thread.sleep(1);
+            status = exportService.status();
+        }
+        if (!"succeeded".equals(status.getState())) {
+            throw new IllegalStateException(status.getError());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,73 @@
+package org.demo.benchmark;
+
+import org.demo.model.Product;
+import org.demo.model.ProductFields;
+import org.demo.repository.ProductRepository;
+import org.demo.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collection paths behind the list endpoints over a stub catalog: the result caches (on and off)
+ * and the paged cursor behind GET /api/products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListEndpointBenchmark {
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"20"})
+    public int maxReviews;
+
+    @Param({"true", "false"})
+    public boolean cacheQueries;
+
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        List<Product> catalog = new ProductFixtures(42).catalog(catalogSize, maxReviews);
+        ProductRepository repository = StubProductRepository.create(catalog);
+        productService = BenchmarkSupport.productService(repository, cacheQueries);
+    }
+
+    @Benchmark
+    public List<Product> byCategory() {
+        return productService.getProductsByCategory("Electronics", ProductFields.ALL);
+    }
+
+    @Benchmark
+    public List<Product> byPriceRange() {
+        return productService.getProductsByPriceRange(100.0, 250.0, ProductFields.ALL);
+    }
+
+    @Benchmark
+    public List<Product> byCategoryAndMaxPrice() {
+        return productService.getProductsByCategoryAndMaxPrice("Books", 999.99, ProductFields.ALL);
+    }
+
+    @Benchmark
+    public String streamAll(Blackhole blackhole) throws IOException {
+        return productService.streamProducts(null, 500, null, page -> page.forEach(blackhole::consume));
+    }
+}
@@ -0,0 +1,114 @@
+package org.demo.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.demo.client.HedgedReads;
+import org.demo.model.Product;
+import org.demo.service.ProductLookupBatcher;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache-missing lookups by id from 32 threads against a stub whose every read, single or
+ * multi-get, takes 2ms. With {@code batchWindowMicros=0} each lookup is its own round trip;
+ * otherwise concurrent lookups share one. The lookups, reads and reads per lookup of each
+ * iteration are reported as secondary results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(32)
+@Fork(1)
+public class LookupBatchingBenchmark {
+
+    @Param({"0", "200"})
+    public int batchWindowMicros;
+
+    @Param({"2"})
+    public int readLatencyMillis;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private ProductLookupBatcher batcher;
+
+    @Setup
+    public void setUp() {
+        List<Product> catalog = new ProductFixtures(42).catalog(catalogSize, 0);
+        batcher = new ProductLookupBatcher(
+                StubProductRepository.create(catalog, Duration.ofMillis(readLatencyMillis), roundTrips),
+                new HedgedReads(false, Duration.ofMillis(50), 16, new SimpleMeterRegistry()),
+                Duration.ofNanos(batchWindowMicros * 1000L), 100, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Reads are made by whichever thread leads a batch, so they cannot be attributed per thread;
+     * the first thread reports the totals of the iteration and the others report zero, as JMH
+     * sums the counters over all threads. It sums them over the iterations as well, so the ratio
+     * is divided by the iteration count to come out as the mean in the results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long lookups;
+        public long reads;
+        public double readsPerLookup;
+
+        private boolean reporting;
+        private int iterations;
+        private long lookupsBefore;
+        private long readsBefore;
+
+        @Setup(Level.Iteration)
+        public void start(LookupBatchingBenchmark benchmark, ThreadParams thread, IterationParams iteration) {
+            reporting = thread.getThreadIndex() == 0;
+            iterations = iteration.getCount();
+            lookups = 0;
+            reads = 0;
+            readsPerLookup = 0;
+            lookupsBefore = benchmark.lookups.get();
+            readsBefore = benchmark.roundTrips.get();
+        }
+
+        @TearDown(Level.Iteration)
+        public void finish(LookupBatchingBenchmark benchmark) {
+            if (reporting) {
+                lookups = benchmark.lookups.get() - lookupsBefore;
+                reads = benchmark.roundTrips.get() - readsBefore;
+                readsPerLookup = lookups == 0 ? 0 : (double) reads / lookups / iterations;
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<Product> findById(Counters counters) {
+        lookups.incrementAndGet();
+        return batcher.findById("p-" + ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+}
@@ -0,0 +1,91 @@
+package org.demo.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A local HTTP server that answers every request like Elasticsearch answers a found document
+ * GET, with injected latency: {@code baseMillis} for most requests, {@code slowMillis} for a
+ * {@code slowFraction} of them (a GC pause or a hot node), and a 503 for an
+ * {@code errorFraction} of them. Enough to exercise the client stack without a cluster.
+ */
+final class MockElasticsearchServer implements AutoCloseable {
+
+    private static final byte[] FOUND = ("{\"_index\":\"products\",\"_id\":\"1\",\"_version\":1,\"_seq_no\":0,"
+            + "\"_primary_term\":1,\"found\":true,\"_source\":{\"id\":\"1\",\"name\":\"MacBook Pro\",\"price\":2399.99}}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNAVAILABLE = ("{\"error\":{\"type\":\"unavailable_shards_exception\","
+            + "\"reason\":\"injected\"},\"status\":503}").getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int baseMillis;
+    private final int slowMillis;
+    private final double slowFraction;
+    private final double errorFraction;
+
+    static {
+        // Without TCP_NODELAY, Nagle and delayed ACKs add ~40ms to every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    MockElasticsearchServer(int baseMillis, int slowMillis, double slowFraction, double errorFraction) throws IOException {
+        this.baseMillis = baseMillis;
+        this.slowMillis = slowMillis;
+        this.slowFraction = slowFraction;
+        this.errorFraction = errorFraction;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // One thread per in-flight request, so injected latency doesn't queue other requests
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(random.nextDouble() < slowFraction ? slowMillis : baseMillis);
+
+            boolean error = random.nextDouble() < errorFraction;
+            byte[] body = error ? UNAVAILABLE : FOUND;
+            // The 8.x client refuses to talk to anything that doesn't identify as Elasticsearch
+            exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(error ? 503 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static void sleep(int millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,126 @@
+package org.demo.benchmark;
+
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.demo.model.Supplier;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic product generator: the same seed always yields the same catalog, so numbers
+ * from different runs and branches are comparable.
+ */
+public final class ProductFixtures {
+
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Home", "Garden", "Toys", "Sports", "Beauty", "Grocery"};
+    private static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Stark", "Wayne", "Hooli", "Soylent"};
+    private static final String[] WORDS = {"great", "value", "fast", "sturdy", "cheap", "premium", "broke", "love",
+            "quality", "shipping", "returned", "recommend", "battery", "screen", "size", "colour"};
+
+    private final Random random;
+
+    public ProductFixtures(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * A product as a client would POST it: no ids, no timestamps, no computed fields.
+     */
+    public Product newProduct(int index, int reviewCount) {
+        Product product = new Product();
+        product.setName("Product " + index + " " + word() + " " + word());
+        product.setDescription(sentence(20));
+        product.setPrice(1 + random.nextInt(500_000) / 100.0);
+        product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        product.setStock(random.nextInt(1_000));
+        product.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+        product.setSupplier(newSupplier(index));
+
+        List<ProductReview> reviews = new ArrayList<>(reviewCount);
+        for (int i = 0; i < reviewCount; i++) {
+            reviews.add(newReview(i));
+        }
+        product.setReviews(reviews);
+        return product;
+    }
+
+    /**
+     * A product as it would come back from Elasticsearch, with ids and computed fields set.
+     */
+    public Product storedProduct(int index, int reviewCount) {
+        Product product = newProduct(index, reviewCount);
+        product.setId("p-" + index);
+        product.setCreatedAt(Instant.ofEpochSecond(1_700_000_000L + index));
+        product.setUpdatedAt(product.getCreatedAt());
+        long sum = 0;
+        for (ProductReview review : product.getReviews()) {
+            review.setId("r-" + index + "-" + review.getUserId());
+            review.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+            sum += review.getRating();
+        }
+        product.setRatingSum(sum);
+        product.setTotalReviews(reviewCount);
+        product.setAverageRating(reviewCount == 0 ? 0.0 : (double) sum / reviewCount);
+        return product;
+    }
+
+    public List<Product> catalog(int size, int maxReviews) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(storedProduct(i, maxReviews == 0 ? 0 : random.nextInt(maxReviews + 1)));
+        }
+        return products;
+    }
+
+    /**
+     * Copies everything preparation mutates, so each benchmark invocation starts from a clean product.
+     */
+    public static Product copyForSave(Product template) {
+        Product product = new Product();
+        product.setName(template.getName());
+        product.setDescription(template.getDescription());
+        product.setPrice(template.getPrice());
+        product.setCategory(template.getCategory());
+        product.setStock(template.getStock());
+        product.setBrand(template.getBrand());
+        Supplier supplier = template.getSupplier();
+        product.setSupplier(new Supplier(supplier.getId(), supplier.getName(), supplier.getContactEmail(),
+                supplier.getContactPhone(), supplier.getCountry(), supplier.getRating(), supplier.getIsActive()));
+        List<ProductReview> reviews = new ArrayList<>(template.getReviews().size());
+        for (ProductReview review : template.getReviews()) {
+            reviews.add(new ProductReview(null, review.getUserId(), review.getUserName(), review.getRating(),
+                    review.getTitle(), review.getComment(), null, review.getIsVerifiedPurchase()));
+        }
+        product.setReviews(reviews);
+        return product;
+    }
+
+    private Supplier newSupplier(int index) {
+        return new Supplier("s-" + index, "Supplier " + word(), "contact" + index + "@supplier-" + word() + ".com",
+                "+1-555-" + (1000 + random.nextInt(9000)), "US", random.nextInt(50) / 10.0, true);
+    }
+
+    private ProductReview newReview(int index) {
+        return new ProductReview(null, "u-" + index, "User " + index, 1 + random.nextInt(5),
+                word() + " " + word(), sentence(30), null, random.nextBoolean());
+    }
+
+    private String sentence(int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(word());
+        }
+        return sentence.toString();
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,99 @@
+package org.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.demo.client.CircuitBreaker;
+import org.demo.client.HedgedReads;
+import org.demo.client.ResilientElasticsearchTransport;
+import org.elasticsearch.client.RestClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Document GETs through the application's client stack (pooled RestClient, per-operation
+ * deadlines, circuit breaker, hedging) against {@link MockElasticsearchServer}. With 5% of
+ * responses delayed by 200ms, compare the sampled p99/p99.9 with {@code hedge=false} and
+ * {@code hedge=true}: hedging after 20ms should cut the tail to roughly delay + base latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(8)
+@Fork(1)
+public class ResilientClientBenchmark {
+
+    @Param({"false", "true"})
+    public boolean hedge;
+
+    @Param({"20"})
+    public int hedgeDelayMillis;
+
+    @Param({"2"})
+    public int baseMillis;
+
+    @Param({"200"})
+    public int slowMillis;
+
+    @Param({"0.05"})
+    public double slowFraction;
+
+    private MockElasticsearchServer server;
+    private RestClient restClient;
+    private ElasticsearchClient client;
+    private HedgedReads hedgedReads;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new MockElasticsearchServer(baseMillis, slowMillis, slowFraction, 0);
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.port()))
+                .setHttpClientConfigCallback(builder -> builder.setMaxConnTotal(100).setMaxConnPerRoute(100))
+                .build();
+        CircuitBreaker breaker = new CircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5);
+        ResilientElasticsearchTransport transport = new ResilientElasticsearchTransport(
+                new RestClientTransport(restClient, new JacksonJsonpMapper()), breaker,
+                Duration.ofSeconds(1), Duration.ofMillis(500), Duration.ofSeconds(2), Duration.ofSeconds(5));
+        client = new ElasticsearchClient(transport);
+        hedgedReads = new HedgedReads(hedge, Duration.ofMillis(hedgeDelayMillis), 16, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        hedgedReads.shutdown();
+        restClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    public GetResponse<Map> getById() {
+        return hedgedReads.read(() -> {
+            try {
+                return client.get(g -> g.index("products").id("1"), Map.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
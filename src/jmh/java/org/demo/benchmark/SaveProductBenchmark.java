@@ -0,0 +1,66 @@
+package org.demo.benchmark;
+
+import org.demo.model.Product;
+import org.demo.repository.ProductRepository;
+import org.demo.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-path preprocessing: id generation, supplier email validation, review processing and
+ * rating aggregation. {@code copy} measures building the fresh input alone and should be
+ * subtracted from the other two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveProductBenchmark {
+
+    @Param({"0", "10", "1000", "10000"})
+    public int reviews;
+
+    private Product template;
+    private ProductService productService;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        template = new ProductFixtures(42).newProduct(0, reviews);
+        ProductRepository repository = StubProductRepository.create(List.of());
+        productService = BenchmarkSupport.productService(repository, true);
+    }
+
+    @Benchmark
+    public Product copy() {
+        return ProductFixtures.copyForSave(template);
+    }
+
+    @Benchmark
+    public Product prepareForSave() {
+        return productService.prepareForSave(ProductFixtures.copyForSave(template));
+    }
+
+    @Benchmark
+    public Product saveProduct() {
+        Product product = ProductFixtures.copyForSave(template);
+        // Unique names so every call passes the duplicate check and reaches the stub save
+        product.setName(template.getName() + " #" + sequence.incrementAndGet());
+        return productService.saveProduct(product);
+    }
+}
@@ -0,0 +1,161 @@
+package org.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.demo.model.Product;
+import org.demo.repository.ProductCursorPage;
+import org.demo.repository.ProductRepository;
+import org.demo.repository.ProductSourcePage;
+import org.demo.service.ProductNameGuard;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Map-backed {@link ProductRepository} with no I/O, so benchmarks measure only application code.
+ * Implemented as a dynamic proxy because the service touches a handful of the many methods
+ * inherited from {@code ElasticsearchRepository}; anything else fails loudly.
+ */
+public final class StubProductRepository implements InvocationHandler {
+
+    private final Map<String, Product> products = new ConcurrentHashMap<>();
+    private final long readLatencyNanos;
+    private final AtomicLong roundTrips;
+    private volatile List<Product> snapshot = List.of();
+    private volatile List<ObjectNode> sources;
+
+    private StubProductRepository(Collection<Product> initial, Duration readLatency, AtomicLong roundTrips) {
+        this.readLatencyNanos = readLatency.toNanos();
+        this.roundTrips = roundTrips;
+        initial.forEach(product -> products.put(product.getId(), product));
+        snapshot = new ArrayList<>(products.values());
+    }
+
+    public static ProductRepository create(Collection<Product> initial) {
+        return create(initial, Duration.ZERO, new AtomicLong());
+    }
+
+    /**
+     * @param readLatency time each by-id read takes, single or multi-get, like a cluster round trip
+     * @param roundTrips  incremented on each by-id read
+     */
+    public static ProductRepository create(Collection<Product> initial, Duration readLatency, AtomicLong roundTrips) {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, new StubProductRepository(initial, readLatency, roundTrips));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "save":
+                Product saved = (Product) args[0];
+                products.put(saved.getId(), saved);
+                return saved;
+            case "findById":
+                roundTrip();
+                return Optional.ofNullable(products.get((String) args[0]));
+            case "findAllById":
+                roundTrip();
+                List<Product> byIds = new ArrayList<>();
+                for (String id : (Iterable<String>) args[0]) {
+                    Product product = products.get(id);
+                    if (product != null) {
+                        byIds.add(product);
+                    }
+                }
+                return byIds;
+            case "deleteById":
+                products.remove((String) args[0]);
+                return null;
+            case "findByCategory":
+                return filter(p -> args[0].equals(p.getCategory()));
+            case "findByNameContaining":
+                return filter(p -> p.getName().contains((String) args[0]));
+            case "findByPriceBetween":
+                return filter(p -> p.getPrice() >= (Double) args[0] && p.getPrice() <= (Double) args[1]);
+            case "findByCategoryAndPriceLessThan":
+                return filter(p -> args[0].equals(p.getCategory()) && p.getPrice() < (Double) args[1]);
+            case "findNamesByNormalizedNames":
+                Collection<String> names = (Collection<String>) args[0];
+                Map<String, String> found = new HashMap<>();
+                for (Product product : snapshot) {
+                    if (names.contains(ProductNameGuard.normalize(product.getName()))) {
+                        found.put(product.getId(), product.getName());
+                    }
+                }
+                return found;
+            case "bulkSave":
+                ((List<Product>) args[0]).forEach(product -> products.put(product.getId(), product));
+                return Map.of();
+            case "openPointInTime":
+                return "stub-pit";
+            case "closePointInTime":
+                return null;
+            case "findPageAfter":
+                return page((List<Object>) args[2], (Integer) args[3]);
+            case "findSourcePageAfter":
+                return sourcePage((Integer) args[2], (Integer) args[3], (List<Object>) args[4], (Integer) args[5]);
+            case "count":
+                return (long) snapshot.size();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "StubProductRepository";
+            default:
+                throw new UnsupportedOperationException("Not stubbed: " + method);
+        }
+    }
+
+    private void roundTrip() {
+        roundTrips.incrementAndGet();
+        if (readLatencyNanos > 0) {
+            LockSupport.parkNanos(readLatencyNanos);
+        }
+    }
+
+    /**
+     * Reads from the snapshot taken at construction, like a point in time would.
+     */
+    private ProductCursorPage page(List<Object> searchAfter, int size) {
+        int from = searchAfter == null ? 0 : ((Number) searchAfter.get(0)).intValue();
+        int to = Math.min(from + size, snapshot.size());
+        return new ProductCursorPage(new ArrayList<>(snapshot.subList(from, to)), List.of(to), "stub-pit");
+    }
+
+    /**
+     * Splits the snapshot into contiguous slices; the source documents are converted once, up
+     * front, since Elasticsearch hands them over already serialized.
+     */
+    private ProductSourcePage sourcePage(int slice, int slices, List<Object> searchAfter, int size) {
+        List<ObjectNode> all = sources;
+        if (all == null) {
+            ObjectMapper mapper = BenchmarkSupport.objectMapper();
+            all = snapshot.stream().<ObjectNode>map(mapper::valueToTree).collect(Collectors.toList());
+            sources = all;
+        }
+        int end = (int) ((long) all.size() * (slice + 1) / slices);
+        int from = searchAfter == null ? (int) ((long) all.size() * slice / slices) : ((Number) searchAfter.get(0)).intValue();
+        int to = Math.min(from + size, end);
+        return new ProductSourcePage(new ArrayList<>(all.subList(from, to)), List.of(to), "stub-pit");
+    }
+
+    private List<Product> filter(Predicate<Product> predicate) {
+        return snapshot.stream().filter(predicate).collect(Collectors.toList());
+    }
+}
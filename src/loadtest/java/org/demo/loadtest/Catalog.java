@@ -0,0 +1,96 @@
+package org.demo.loadtest;
+
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.demo.model.Supplier;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the products of the load test: a seeded catalog of {@code p-0} to {@code p-<n-1>}
+ * for the fake index, and fresh products with unique names for bulk writes. Names, brands and
+ * descriptions draw from small vocabularies, so search terms match a realistic share of the
+ * catalog.
+ */
+final class Catalog {
+
+    static final List<String> CATEGORIES = List.of("electronics", "books", "clothing", "home", "sports",
+            "toys", "garden", "beauty", "grocery", "automotive");
+    static final List<String> BRANDS = List.of("Acme", "Globex", "Initech", "Umbrella", "Stark", "Wayne",
+            "Wonka", "Hooli", "Vandelay", "Tyrell", "Cyberdyne", "Soylent");
+    static final List<String> ADJECTIVES = List.of("wireless", "organic", "compact", "deluxe", "classic",
+            "portable", "smart", "vintage", "ergonomic", "waterproof", "premium", "eco");
+    static final List<String> NOUNS = List.of("headphones", "novel", "jacket", "lamp", "racket", "puzzle",
+            "shovel", "serum", "coffee", "charger", "backpack", "kettle", "speaker", "sneakers", "blender",
+            "notebook", "tent", "watch", "drone", "mug");
+    private static final List<String> COUNTRIES = List.of("US", "DE", "FR", "CN", "JP", "MA", "BR", "IN");
+    private static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final int size;
+    private final AtomicLong created = new AtomicLong();
+
+    Catalog(int size) {
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    List<Product> initialProducts(long seed) {
+        Random random = new Random(seed);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(product(random, "p-" + i, i));
+        }
+        return products;
+    }
+
+    /**
+     * A product that is not in the catalog yet, without an id, as a client would send it.
+     */
+    Product newProduct(Random random) {
+        long n = size + created.getAndIncrement();
+        return product(random, null, n);
+    }
+
+    private static Product product(Random random, String id, long n) {
+        String brand = pick(random, BRANDS);
+        String adjective = pick(random, ADJECTIVES);
+        String noun = pick(random, NOUNS);
+
+        Product product = new Product();
+        product.setId(id);
+        // The number keeps names unique, as the name guard requires
+        product.setName(brand + " " + adjective + " " + noun + " " + n);
+        product.setDescription("A " + adjective + " " + noun + " by " + brand + ", " + pick(random, ADJECTIVES)
+                + " and " + pick(random, ADJECTIVES) + ".");
+        product.setCategory(pick(random, CATEGORIES));
+        product.setBrand(brand);
+        product.setPrice(Math.round((1 + random.nextDouble() * 499) * 100) / 100.0);
+        product.setStock(random.nextInt(500));
+        Instant createdAt = EPOCH.plusSeconds(n * 60);
+        product.setCreatedAt(createdAt);
+        product.setUpdatedAt(createdAt);
+        product.setSupplier(new Supplier("s-" + random.nextInt(100), pick(random, BRANDS) + " Supply",
+                null, null, pick(random, COUNTRIES), 3 + random.nextInt(3) * 0.5, true));
+
+        int reviews = random.nextInt(4);
+        for (int r = 0; r < reviews; r++) {
+            product.addReview(new ProductReview("r-" + n + "-" + r, "u-" + random.nextInt(10_000), "Shopper",
+                    1 + random.nextInt(5), "Review of " + noun, "The " + noun + " is " + pick(random, ADJECTIVES) + ".",
+                    LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC), random.nextBoolean()));
+        }
+        return product;
+    }
+
+    static <T> T pick(Random random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
@@ -0,0 +1,92 @@
+package org.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks the streaming cursor of {@code GET /api/products} against the fake index before the
+ * load starts: walking the catalog with a limit and the continuation tokens must return every
+ * product exactly once, and invalid limits and tokens must be rejected with 400.
+ */
+final class CursorCheck {
+
+    private static final int LIMIT = 1000;
+    // Not a divisor of the limit, so that a limit ends in the middle of a page
+    private static final int PAGE_SIZE = 300;
+    // Stops a cursor that never ends; a correct walk needs catalog / LIMIT + 1 calls
+    private static final int MAX_CALLS = 10_000;
+
+    private final URI base;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private CursorCheck(URI base) {
+        this.base = base;
+    }
+
+    /**
+     * @return a description of each failed check; empty when the cursor behaved
+     */
+    static List<String> run(URI base, int catalogSize) throws IOException, InterruptedException {
+        return new CursorCheck(base).check(catalogSize);
+    }
+
+    private List<String> check(int catalogSize) throws IOException, InterruptedException {
+        List<String> violations = new ArrayList<>();
+        for (String query : List.of("limit=0", "limit=-1", "continuationToken=not-a-token")) {
+            int status = get("/api/products?" + query).statusCode();
+            if (status != 400) {
+                violations.add("cursor: GET /api/products?" + query + " answered " + status + ", expected 400");
+            }
+        }
+
+        Set<String> seen = new HashSet<>();
+        String token = null;
+        int calls = 0;
+        do {
+            String path = "/api/products?limit=" + LIMIT + "&pageSize=" + PAGE_SIZE
+                    + (token != null ? "&continuationToken=" + URLEncoder.encode(token, StandardCharsets.UTF_8) : "");
+            HttpResponse<String> response = get(path);
+            if (response.statusCode() != 200) {
+                violations.add("cursor: call " + (calls + 1) + " answered " + response.statusCode());
+                return violations;
+            }
+            JsonNode body = mapper.readTree(response.body());
+            JsonNode products = body.path("products");
+            if (products.size() > LIMIT) {
+                violations.add("cursor: " + products.size() + " products returned for a limit of " + LIMIT);
+            }
+            for (JsonNode product : products) {
+                String id = product.path("id").asText();
+                if (!seen.add(id)) {
+                    violations.add("cursor: product " + id + " returned twice");
+                }
+            }
+            token = body.path("continuationToken").isTextual() ? body.path("continuationToken").asText() : null;
+        } while (token != null && ++calls < MAX_CALLS);
+
+        if (token != null) {
+            violations.add("cursor: still handing out tokens after " + MAX_CALLS + " calls");
+        }
+        if (seen.size() != catalogSize) {
+            violations.add("cursor: walked " + seen.size() + " distinct products of " + catalogSize);
+        }
+        return violations;
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(base.resolve(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,341 @@
+package org.demo.loadtest;
+
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.demo.repository.FacetBucket;
+import org.demo.repository.ProductCursorPage;
+import org.demo.repository.ProductReactiveRepository;
+import org.demo.repository.ProductRepository;
+import org.demo.repository.ProductSearchPage;
+import org.demo.repository.ProductSearchQuery;
+import org.demo.service.ProductNameGuard;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-process stand-in for Elasticsearch behind the {@link ProductRepository} contract. Products
+ * live in an in-memory index ordered by id; every call pays a simulated round trip and hands out
+ * copies, as documents parsed from a response would be. Covers the calls the load-test workload
+ * reaches; anything else fails loudly, so an uncovered endpoint shows up as errors in the report
+ * rather than as an implausibly fast one.
+ * <p>
+ * {@link #reactive(ProductRepository)} serves the same products through
+ * {@link ProductReactiveRepository}; there the round trip completes on a timer instead of
+ * parking the calling thread.
+ */
+final class FakeProductRepository implements InvocationHandler {
+
+    private final ConcurrentSkipListMap<String, Product> products = new ConcurrentSkipListMap<>();
+    private final Map<String, String> idsByNormalizedName = new ConcurrentHashMap<>();
+    private final Latency readLatency;
+    private final Latency writeLatency;
+
+    private FakeProductRepository(Collection<Product> initial, Latency readLatency, Latency writeLatency) {
+        this.readLatency = readLatency;
+        this.writeLatency = writeLatency;
+        initial.forEach(this::put);
+    }
+
+    static ProductRepository create(Collection<Product> initial, Latency readLatency, Latency writeLatency) {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, new FakeProductRepository(initial, readLatency, writeLatency));
+    }
+
+    /**
+     * The non-blocking view of a repository made by {@link #create}, for the reactive read endpoints.
+     */
+    static ProductReactiveRepository reactive(ProductRepository repository) {
+        FakeProductRepository fake = (FakeProductRepository) Proxy.getInvocationHandler(repository);
+        return (ProductReactiveRepository) Proxy.newProxyInstance(ProductReactiveRepository.class.getClassLoader(),
+                new Class<?>[]{ProductReactiveRepository.class}, fake::invokeReactive);
+    }
+
+    /**
+     * A repository of the given type on which every call fails, for beans the workload never uses.
+     */
+    static <T> T unsupported(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "Unsupported" + type.getSimpleName();
+                default:
+                    throw new UnsupportedOperationException("Not implemented by the load test: " + method);
+            }
+        }));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "save":
+                writeLatency.pause();
+                return copy(put(copy((Product) args[0])));
+            case "bulkSave":
+                writeLatency.pause();
+                ((List<Product>) args[0]).forEach(product -> put(copy(product)));
+                return Map.of();
+            case "deleteById":
+                writeLatency.pause();
+                Product removed = products.remove((String) args[0]);
+                if (removed != null && removed.getName() != null) {
+                    idsByNormalizedName.remove(ProductNameGuard.normalize(removed.getName()), removed.getId());
+                }
+                return null;
+            case "findById":
+                readLatency.pause();
+                return Optional.ofNullable(products.get((String) args[0])).map(FakeProductRepository::copy);
+            case "existsById":
+                readLatency.pause();
+                return products.containsKey((String) args[0]);
+            case "findAllById":
+                readLatency.pause();
+                List<Product> byIds = new ArrayList<>();
+                for (String id : (Iterable<String>) args[0]) {
+                    Product product = products.get(id);
+                    if (product != null) {
+                        byIds.add(copy(product));
+                    }
+                }
+                return byIds;
+            case "count":
+                readLatency.pause();
+                return (long) products.size();
+            case "findByCategory":
+                return filter(p -> args[0].equals(p.getCategory()));
+            case "findByNameContaining":
+                String fragment = ((String) args[0]).toLowerCase(Locale.ROOT);
+                return filter(p -> p.getName() != null && p.getName().toLowerCase(Locale.ROOT).contains(fragment));
+            case "findByPriceBetween":
+                return filter(p -> p.getPrice() >= (Double) args[0] && p.getPrice() <= (Double) args[1]);
+            case "findByCategoryAndPriceLessThan":
+                return filter(p -> args[0].equals(p.getCategory()) && p.getPrice() < (Double) args[1]);
+            case "findNamesByNormalizedNames":
+                readLatency.pause();
+                Map<String, String> owners = new HashMap<>();
+                for (String name : (Collection<String>) args[0]) {
+                    String id = idsByNormalizedName.get(name);
+                    Product product = id != null ? products.get(id) : null;
+                    if (product != null) {
+                        owners.put(id, product.getName());
+                    }
+                }
+                return owners;
+            case "search":
+                readLatency.pause();
+                return search((ProductSearchQuery) args[0]);
+            case "suggest":
+                readLatency.pause();
+                return suggest((String) args[0], (Integer) args[1]);
+            case "openPointInTime":
+                readLatency.pause();
+                return "fake-pit";
+            case "findPageAfter":
+                readLatency.pause();
+                return page((List<Object>) args[2], (Integer) args[3]);
+            case "closePointInTime":
+                return null;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeProductRepository";
+            default:
+                throw new UnsupportedOperationException("Not implemented by the load test: " + method);
+        }
+    }
+
+    private Object invokeReactive(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "findById":
+                return readLatency.delay().then(Mono.fromSupplier(() -> products.get((String) args[0])))
+                        .map(FakeProductRepository::copy);
+            case "findByCategory":
+                return readLatency.delay().thenMany(Flux.defer(() -> Flux.fromIterable(select(p -> args[0].equals(p.getCategory())))));
+            case "findByNameContaining":
+                String fragment = ((String) args[0]).toLowerCase(Locale.ROOT);
+                return readLatency.delay().thenMany(Flux.defer(() -> Flux.fromIterable(
+                        select(p -> p.getName() != null && p.getName().toLowerCase(Locale.ROOT).contains(fragment)))));
+            case "findByPriceBetween":
+                return readLatency.delay().thenMany(Flux.defer(() -> Flux.fromIterable(
+                        select(p -> p.getPrice() >= (Double) args[0] && p.getPrice() <= (Double) args[1]))));
+            case "findByCategoryAndPriceLessThan":
+                return readLatency.delay().thenMany(Flux.defer(() -> Flux.fromIterable(
+                        select(p -> args[0].equals(p.getCategory()) && p.getPrice() < (Double) args[1]))));
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeProductReactiveRepository";
+            default:
+                throw new UnsupportedOperationException("Not implemented by the load test: " + method);
+        }
+    }
+
+    private Product put(Product product) {
+        if (product.getId() == null) {
+            product.setId(UUID.randomUUID().toString());
+        }
+        products.put(product.getId(), product);
+        if (product.getName() != null) {
+            idsByNormalizedName.put(ProductNameGuard.normalize(product.getName()), product.getId());
+        }
+        return product;
+    }
+
+    /**
+     * Copies the product and its review list; reviews and supplier are shared, nothing in the
+     * application mutates them in place. A copy through Jackson would cost the application under
+     * test more CPU than serving the request.
+     */
+    private static Product copy(Product product) {
+        List<ProductReview> reviews = product.getReviews() != null ? new ArrayList<>(product.getReviews()) : new ArrayList<>();
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), product.getStock(), product.getBrand(), product.getCreatedAt(),
+                product.getUpdatedAt(), reviews, product.getSupplier(), product.getAverageRating(),
+                product.getTotalReviews(), product.getRatingSum());
+    }
+
+    private List<Product> filter(Predicate<Product> predicate) {
+        readLatency.pause();
+        return select(predicate);
+    }
+
+    private List<Product> select(Predicate<Product> predicate) {
+        return products.values().stream().filter(predicate).map(FakeProductRepository::copy).collect(Collectors.toList());
+    }
+
+    /**
+     * Any word of the text in name, brand or description, ranked by the number of words
+     * matched, with category and brand facets over all matches.
+     */
+    private ProductSearchPage search(ProductSearchQuery query) {
+        List<String> words = query.getText() == null || query.getText().isBlank()
+                ? List.of()
+                : List.of(query.getText().toLowerCase(Locale.ROOT).trim().split("\\s+"));
+
+        Map<Product, Integer> scores = new LinkedHashMap<>();
+        for (Product product : products.values()) {
+            if (!matchesFilters(product, query)) {
+                continue;
+            }
+            int score = words.isEmpty() ? 1 : score(product, words);
+            if (score > 0) {
+                scores.put(product, score);
+            }
+        }
+
+        Map<String, Long> categories = new LinkedHashMap<>();
+        Map<String, Long> brands = new LinkedHashMap<>();
+        scores.keySet().forEach(product -> {
+            categories.merge(String.valueOf(product.getCategory()), 1L, Long::sum);
+            brands.merge(String.valueOf(product.getBrand()), 1L, Long::sum);
+        });
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        facets.put("category", buckets(categories));
+        facets.put("brand", buckets(brands));
+
+        List<Product> hits = scores.entrySet().stream()
+                .sorted(Map.Entry.<Product, Integer>comparingByValue().reversed())
+                .skip((long) query.getPage() * query.getSize())
+                .limit(query.getSize())
+                .map(entry -> copy(entry.getKey()))
+                .collect(Collectors.toList());
+        return new ProductSearchPage(hits, scores.size(), true, facets);
+    }
+
+    private static boolean matchesFilters(Product product, ProductSearchQuery query) {
+        if (query.getCategories() != null && !query.getCategories().isEmpty()
+                && !query.getCategories().contains(product.getCategory())) {
+            return false;
+        }
+        if (query.getBrands() != null && !query.getBrands().isEmpty() && !query.getBrands().contains(product.getBrand())) {
+            return false;
+        }
+        double price = product.getPrice() != null ? product.getPrice() : 0;
+        if (query.getMinPrice() != null && price < query.getMinPrice()
+                || query.getMaxPrice() != null && price > query.getMaxPrice()) {
+            return false;
+        }
+        double rating = product.getAverageRating() != null ? product.getAverageRating() : 0;
+        return query.getMinRating() == null || rating >= query.getMinRating();
+    }
+
+    private static int score(Product product, List<String> words) {
+        String text = (product.getName() + " " + product.getBrand() + " " + product.getDescription()).toLowerCase(Locale.ROOT);
+        int score = 0;
+        for (String word : words) {
+            if (text.contains(word)) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    private static List<FacetBucket> buckets(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(10)
+                .map(entry -> FacetBucket.term(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private List<Product> suggest(String prefix, int size) {
+        String normalized = prefix.toLowerCase(Locale.ROOT);
+        Set<String> names = new LinkedHashSet<>();
+        List<Product> suggestions = new ArrayList<>();
+        for (Product product : products.values()) {
+            if (suggestions.size() >= size) {
+                break;
+            }
+            String name = product.getName();
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(normalized) && names.add(name)) {
+                Product suggestion = new Product();
+                suggestion.setId(product.getId());
+                suggestion.setName(name);
+                suggestion.setBrand(product.getBrand());
+                suggestions.add(suggestion);
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Pages in id order. Unlike a point in time this sees concurrent writes, which the cursor
+     * tolerates.
+     */
+    private ProductCursorPage page(List<Object> searchAfter, int size) {
+        Collection<Product> rest = searchAfter == null
+                ? products.values()
+                : products.tailMap((String) searchAfter.get(0), false).values();
+        List<Product> page = rest.stream().limit(size).map(FakeProductRepository::copy).collect(Collectors.toList());
+        List<Object> last = page.isEmpty() ? searchAfter : List.of(page.get(page.size() - 1).getId());
+        return new ProductCursorPage(page, last, "fake-pit");
+    }
+}
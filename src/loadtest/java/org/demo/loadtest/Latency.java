@@ -0,0 +1,48 @@
+package org.demo.loadtest;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulated cluster round trip. Times are log-normally distributed around the median, which is
+ * how request latencies usually look: with a spread of 0.5 the p99 is about 3.2 times the
+ * median, with 1.0 about 10 times.
+ */
+final class Latency {
+
+    private final long medianNanos;
+    private final double spread;
+
+    Latency(Duration median, double spread) {
+        this.medianNanos = median.toNanos();
+        this.spread = spread;
+    }
+
+    /**
+     * Blocks the calling thread for one round trip, like a synchronous client call.
+     */
+    void pause() {
+        long nanos = nextNanos();
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+
+    /**
+     * One round trip without blocking, like a non-blocking client call: completes on a timer.
+     */
+    Mono<Long> delay() {
+        return Mono.delay(Duration.ofNanos(nextNanos()));
+    }
+
+    private long nextNanos() {
+        if (medianNanos <= 0) {
+            return 0;
+        }
+        double factor = Math.exp(spread * ThreadLocalRandom.current().nextGaussian());
+        return (long) (medianNanos * factor);
+    }
+}
@@ -0,0 +1,124 @@
+package org.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint results of the measured part of a run: an HDR histogram of response times in
+ * microseconds, and counters of error responses and of requests dropped because too many were
+ * in flight. Recording is thread-safe.
+ */
+final class LoadReport {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    LoadReport(List<String> endpoints) {
+        endpoints.forEach(endpoint -> this.endpoints.put(endpoint, new Endpoint()));
+    }
+
+    void record(String endpoint, long nanos, boolean error) {
+        Endpoint results = endpoints.get(endpoint);
+        results.latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_MICROS));
+        if (error) {
+            results.errors.increment();
+        }
+    }
+
+    void dropped(String endpoint) {
+        endpoints.get(endpoint).dropped.increment();
+    }
+
+    /**
+     * Prints one row per endpoint and a total row.
+     *
+     * @param elapsed length of the measured part of the run, for the throughput column
+     */
+    void print(PrintStream out, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        int width = Math.max(40, endpoints.keySet().stream().mapToInt(String::length).max().orElse(0));
+        String format = "%-" + width + "s %9s %7s %8s %9s %8s %8s %8s %8s %9s%n";
+        out.printf(Locale.ROOT, format, "endpoint", "requests", "errors", "dropped", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram all = new Histogram(HIGHEST_MICROS, 3);
+        long errors = 0;
+        long dropped = 0;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint results = entry.getValue();
+            Histogram latencies = results.latencies.copy();
+            all.add(latencies);
+            errors += results.errors.sum();
+            dropped += results.dropped.sum();
+            printRow(out, format, entry.getKey(), latencies, results.errors.sum(), results.dropped.sum(), seconds);
+        }
+        printRow(out, format, "total", all, errors, dropped, seconds);
+    }
+
+    /**
+     * Writes each endpoint's percentile distribution as {@code <endpoint>.hgrm}, in the text
+     * format HdrHistogram's plotter reads, with values in milliseconds.
+     */
+    void writeDistributions(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            String file = entry.getKey().replaceAll("[^A-Za-z0-9_-]+", "_").replaceAll("^_+|_+$", "") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(file)), false, "UTF-8")) {
+                entry.getValue().latencies.copy().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    /**
+     * @return a description of each failed check: errors, drops, and a p99 above {@code sloP99}
+     * when given; empty when the run passed
+     */
+    List<String> violations(Duration sloP99) {
+        List<String> violations = new ArrayList<>();
+        endpoints.forEach((endpoint, results) -> {
+            if (results.errors.sum() > 0) {
+                violations.add(endpoint + ": " + results.errors.sum() + " errors");
+            }
+            if (results.dropped.sum() > 0) {
+                violations.add(endpoint + ": " + results.dropped.sum() + " requests dropped");
+            }
+            long p99 = results.latencies.getValueAtPercentile(99);
+            if (sloP99 != null && results.latencies.getTotalCount() > 0 && p99 > sloP99.toNanos() / 1000) {
+                violations.add(String.format(Locale.ROOT, "%s: p99 %.1f ms exceeds %d ms", endpoint,
+                        p99 / 1000.0, sloP99.toMillis()));
+            }
+        });
+        return violations;
+    }
+
+    private static void printRow(PrintStream out, String format, String endpoint, Histogram latencies,
+                                 long errors, long dropped, double seconds) {
+        out.printf(Locale.ROOT, format, endpoint, latencies.getTotalCount(), errors, dropped,
+                String.format(Locale.ROOT, "%.1f", latencies.getTotalCount() / seconds),
+                millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                String.format(Locale.ROOT, "%.2f", latencies.getMaxValue() / 1000.0));
+    }
+
+    private static String millis(Histogram latencies, double percentile) {
+        return String.format(Locale.ROOT, "%.2f", latencies.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static final class Endpoint {
+        private final ConcurrentHistogram latencies = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+    }
+}
@@ -0,0 +1,78 @@
+package org.demo.loadtest;
+
+import org.demo.repository.ProductRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Capacity test of the product API: starts the application in-process against
+ * {@link FakeProductRepository}, drives {@code ProductController} with an open-loop request mix
+ * and prints throughput and latency percentiles per endpoint. Before the load, {@link CursorCheck}
+ * walks the catalog through the streaming cursor.
+ * <p>
+ * Exits with status 1 when the cursor check failed, any request failed or was dropped, or when
+ * a p99 exceeds {@code --slo-p99}, so a build can gate on it; with 2 on invalid options.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rate=500 --duration=2m --slo-p99=50ms"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        // The restarter of spring-boot-devtools would start the application a second time
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        Catalog catalog = new Catalog(options.catalog);
+        ProductRepository repository = FakeProductRepository.create(catalog.initialProducts(options.seed),
+                new Latency(options.readLatency, options.latencySpread),
+                new Latency(options.writeLatency, options.latencySpread));
+
+        int exitCode;
+        try (ConfigurableApplicationContext context = LoadTestApplication.start(repository, options.applicationArgs)) {
+            URI base = URI.create("http://localhost:" + LoadTestApplication.port(context));
+            Workload workload = new Workload(base, catalog, options.mix, options.bulkSize, options.reactiveReads(),
+                    options.seed);
+            OpenLoopDriver driver = new OpenLoopDriver(workload, options.rate, options.maxInFlight);
+            try {
+                // Before any bulk load adds products to the catalog
+                List<String> violations = new ArrayList<>(CursorCheck.run(base, options.catalog));
+                System.out.printf("%d products, %d req/s, mix %s, %s execution, warmup %s, measured %s%n",
+                        options.catalog, options.rate, options.mix, options.execution, options.warmup, options.duration);
+                if (!options.warmup.isZero()) {
+                    driver.run(options.warmup, null);
+                }
+
+                LoadReport report = new LoadReport(workload.endpoints());
+                long start = System.nanoTime();
+                driver.run(options.duration, report);
+                report.print(System.out, Duration.ofNanos(System.nanoTime() - start));
+                if (options.hdrDir != null) {
+                    report.writeDistributions(options.hdrDir);
+                }
+
+                violations.addAll(report.violations(options.sloP99));
+                violations.forEach(violation -> System.out.println("FAILED " + violation));
+                exitCode = violations.isEmpty() ? 0 : 1;
+            } finally {
+                driver.shutdown();
+            }
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,81 @@
+package org.demo.loadtest;
+
+import org.demo.ElasticsearchSpringSearchflowApplication;
+import org.demo.config.ElasticsearchClientConfig;
+import org.demo.config.ReactiveReadsConfig;
+import org.demo.controller.IndexController;
+import org.demo.repository.ProductIndexManager;
+import org.demo.repository.ProductRepository;
+import org.demo.repository.ProductReviewRepository;
+import org.demo.service.ProductReindexService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.elasticsearch.ElasticsearchDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.elasticsearch.ElasticsearchRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.elasticsearch.ReactiveElasticsearchRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.elasticsearch.ElasticsearchClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.elasticsearch.ElasticsearchRestClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.elasticsearch.ReactiveElasticsearchClientAutoConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application with its real controllers, services and caches, but without Elasticsearch:
+ * the client, the Spring Data repositories and the beans that manage the index are left out,
+ * and {@link FakeProductRepository} stands in for {@link ProductRepository} and, for the
+ * reactive read endpoints, {@code ProductReactiveRepository}. The index endpoints and separate
+ * review storage are therefore not available.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        ElasticsearchClientAutoConfiguration.class,
+        ElasticsearchRestClientAutoConfiguration.class,
+        ReactiveElasticsearchClientAutoConfiguration.class,
+        ElasticsearchDataAutoConfiguration.class,
+        ElasticsearchRepositoriesAutoConfiguration.class,
+        ReactiveElasticsearchRepositoriesAutoConfiguration.class
+})
+@ComponentScan(basePackages = "org.demo", excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+                ElasticsearchSpringSearchflowApplication.class,
+                ElasticsearchClientConfig.class,
+                ReactiveReadsConfig.class,
+                ProductIndexManager.class,
+                ProductReindexService.class,
+                IndexController.class
+        }),
+        @ComponentScan.Filter(type = FilterType.REGEX, pattern = "org\\.demo\\.loadtest\\..*")
+})
+class LoadTestApplication {
+
+    /**
+     * Starts the application on a free port with the given repository.
+     *
+     * @param args application arguments; they take precedence over application.properties
+     */
+    static ConfigurableApplicationContext start(ProductRepository repository, List<String> args) {
+        SpringApplication application = new SpringApplication(LoadTestApplication.class);
+        application.addInitializers(context -> {
+            context.getBeanFactory().registerSingleton("productRepository", repository);
+            context.getBeanFactory().registerSingleton("productReactiveRepository",
+                    FakeProductRepository.reactive(repository));
+            context.getBeanFactory().registerSingleton("productReviewRepository",
+                    FakeProductRepository.unsupported(ProductReviewRepository.class));
+        });
+        List<String> all = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN",
+                // Pooled worker threads outlive the web application by design; not worth a warning each
+                "--logging.level.org.apache.catalina.loader=ERROR"));
+        all.addAll(args);
+        return application.run(all.toArray(String[]::new));
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+}
@@ -0,0 +1,149 @@
+package org.demo.loadtest;
+
+import org.demo.config.VirtualThreads;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options of {@link LoadTest}, all in {@code --name=value} form. Options starting
+ * with {@code --products.}, {@code --spring.}, {@code --server.} or {@code --logging.} are
+ * passed through to the application, so any setting in application.properties can be varied
+ * between runs.
+ */
+final class LoadTestOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Options (--name=value):",
+            "  --rate=200               requests per second, arrivals evenly spaced",
+            "  --duration=60s           measured run length",
+            "  --warmup=10s             run length before measuring, results discarded",
+            "  --catalog=10000          products in the fake index before the run",
+            "  --mix=pdp=50,browse=25,search=20,bulk=5",
+            "                           relative weights of pdp, browse, search, mget and bulk",
+            "  --bulk-size=50           products per POST /api/products/_bulk",
+            "  --read-latency=2ms       median simulated Elasticsearch read round trip",
+            "  --write-latency=10ms     median simulated Elasticsearch write round trip",
+            "  --latency-spread=0.5     log-normal sigma of the simulated round trips",
+            "  --max-in-flight=2000     requests in flight before further arrivals are dropped",
+            "  --slo-p99=               fail when any endpoint's p99 exceeds this, e.g. 50ms",
+            "  --hdr-dir=               write one .hgrm percentile distribution per endpoint here",
+            "  --seed=42                workload random seed",
+            "  --execution=platform     platform (Tomcat worker pool), virtual (virtual threads, Java 21+)",
+            "                           or reactive (pdp and browse on the reactive read endpoints)",
+            "  --products.*, --spring.*, --server.*, --logging.*  passed to the application");
+
+    private static final List<String> PASS_THROUGH = List.of("--products.", "--spring.", "--server.", "--logging.");
+
+    int rate = 200;
+    Duration duration = Duration.ofSeconds(60);
+    Duration warmup = Duration.ofSeconds(10);
+    int catalog = 10_000;
+    Map<String, Integer> mix = parseMix("pdp=50,browse=25,search=20,bulk=5");
+    int bulkSize = 50;
+    Duration readLatency = Duration.ofMillis(2);
+    Duration writeLatency = Duration.ofMillis(10);
+    double latencySpread = 0.5;
+    int maxInFlight = 2000;
+    Duration sloP99;
+    Path hdrDir;
+    long seed = 42;
+    String execution = "platform";
+    final List<String> applicationArgs = new ArrayList<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (PASS_THROUGH.stream().anyMatch(arg::startsWith)) {
+                options.applicationArgs.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, not '" + arg + "'");
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            boolean known;
+            try {
+                known = options.set(name, value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid value for --" + name + ": '" + value + "'", e);
+            }
+            if (!known) {
+                throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.rate <= 0 || options.catalog <= 0 || options.bulkSize <= 0 || options.maxInFlight <= 0
+                || options.duration.isZero() || options.duration.isNegative() || options.warmup.isNegative()) {
+            throw new IllegalArgumentException("rate, catalog, bulk-size, max-in-flight and duration must be positive");
+        }
+        switch (options.execution) {
+            case "platform" -> {
+            }
+            case "virtual" -> {
+                if (!VirtualThreads.isSupported()) {
+                    throw new IllegalArgumentException("--execution=virtual needs Java 21 or later, running on "
+                            + Runtime.version());
+                }
+                options.applicationArgs.add("--products.execution.virtual-threads=true");
+            }
+            case "reactive" -> options.applicationArgs.add("--products.execution.reactive-reads=true");
+            default -> throw new IllegalArgumentException("--execution must be platform, virtual or reactive");
+        }
+        return options;
+    }
+
+    boolean reactiveReads() {
+        return execution.equals("reactive");
+    }
+
+    private boolean set(String name, String value) {
+        switch (name) {
+            case "rate" -> rate = Integer.parseInt(value);
+            case "duration" -> duration = DurationStyle.detectAndParse(value);
+            case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+            case "catalog" -> catalog = Integer.parseInt(value);
+            case "mix" -> mix = parseMix(value);
+            case "bulk-size" -> bulkSize = Integer.parseInt(value);
+            case "read-latency" -> readLatency = DurationStyle.detectAndParse(value);
+            case "write-latency" -> writeLatency = DurationStyle.detectAndParse(value);
+            case "latency-spread" -> latencySpread = Double.parseDouble(value);
+            case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+            case "slo-p99" -> sloP99 = value.isEmpty() ? null : DurationStyle.detectAndParse(value);
+            case "hdr-dir" -> hdrDir = value.isEmpty() ? null : Path.of(value);
+            case "seed" -> seed = Long.parseLong(value);
+            case "execution" -> execution = value;
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight, not '" + entry + "'");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            if (weight > 0) {
+                weights.put(parts[0].trim(), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,97 @@
+package org.demo.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate, whatever the response times. A closed loop of
+ * clients that wait for each response before sending the next would slow down along with the
+ * service and hide exactly the queueing a capacity test is after. Here arrival {@code n} is due
+ * at {@code start + n / rate}, and its latency is measured from that moment rather than from
+ * when it was actually sent, so time spent queued behind a stalled driver or connection counts
+ * too (no coordinated omission).
+ * <p>
+ * At most {@code maxInFlight} requests are outstanding; arrivals beyond that are counted as
+ * dropped instead of piling up without bound in a service that can no longer keep up.
+ */
+final class OpenLoopDriver {
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Workload workload;
+    private final int rate;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    OpenLoopDriver(Workload workload, int rate, int maxInFlight) {
+        this.workload = workload;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Runs the schedule for {@code duration} and waits for the outstanding requests.
+     *
+     * @param report where results go, or {@code null} to discard them, as during warmup
+     */
+    void run(Duration duration, LoadReport report) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long n = 0; ; n++) {
+            long due = start + n * intervalNanos;
+            if (due >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(workload.next(), due, report);
+        }
+        // Waits for everything still outstanding
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void send(Workload.Request request, long due, LoadReport report) {
+        if (!inFlight.tryAcquire()) {
+            if (report != null) {
+                report.dropped(request.endpoint());
+            }
+            return;
+        }
+        client.sendAsync(request.http(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    try {
+                        if (report != null) {
+                            boolean error = failure != null || response.statusCode() >= 400;
+                            report.record(request.endpoint(), System.nanoTime() - due, error);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+    }
+}
@@ -0,0 +1,173 @@
+package org.demo.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.demo.dto.MultiGetRequest;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The request mix of the load test. Each operation stands for one endpoint of
+ * {@code ProductController} and is drawn with the probability of its weight:
+ * <ul>
+ *     <li>{@code pdp}: {@code GET /api/products/{id}}, ids skewed towards the start of the
+ *     catalog so a few products get most of the traffic, as on a product detail page</li>
+ *     <li>{@code browse}: {@code GET /api/products/category/{category}}</li>
+ *     <li>{@code search}: {@code GET /api/products/_search} with one or two words and the card
+ *     projection, a quarter of them filtered by category</li>
+ *     <li>{@code mget}: {@code POST /api/products/_mget} for a page of 20 ids</li>
+ *     <li>{@code bulk}: {@code POST /api/products/_bulk} of new products as NDJSON</li>
+ * </ul>
+ * With reactive reads, {@code pdp} and {@code browse} go to the same paths under
+ * {@code /api/reactive/products} instead; the other operations have no reactive variant.
+ * Not thread-safe; the driver draws all requests from one thread.
+ */
+final class Workload {
+
+    private static final Map<String, String> ENDPOINTS = Map.of(
+            "pdp", "GET /api/products/{id}",
+            "browse", "GET /api/products/category/{category}",
+            "search", "GET /api/products/_search",
+            "mget", "POST /api/products/_mget",
+            "bulk", "POST /api/products/_bulk");
+
+    private static final Map<String, String> REACTIVE_ENDPOINTS = Map.of(
+            "pdp", "GET /api/reactive/products/{id}",
+            "browse", "GET /api/reactive/products/category/{category}");
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI base;
+    private final Catalog catalog;
+    private final int bulkSize;
+    private final boolean reactiveReads;
+    private final Random random;
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    private final String[] operations;
+    private final int[] cumulativeWeights;
+
+    /**
+     * One request to send, labelled with the endpoint it is reported under.
+     */
+    record Request(String endpoint, HttpRequest http) {
+    }
+
+    Workload(URI base, Catalog catalog, Map<String, Integer> mix, int bulkSize, boolean reactiveReads, long seed) {
+        this.base = base;
+        this.catalog = catalog;
+        this.bulkSize = bulkSize;
+        this.reactiveReads = reactiveReads;
+        this.random = new Random(seed);
+        this.operations = new String[mix.size()];
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            if (!ENDPOINTS.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown operation '" + entry.getKey() + "', expected one of "
+                        + ENDPOINTS.keySet());
+            }
+            total += entry.getValue();
+            operations[i] = entry.getKey();
+            cumulativeWeights[i++] = total;
+        }
+    }
+
+    List<String> endpoints() {
+        List<String> endpoints = new ArrayList<>();
+        for (String operation : operations) {
+            endpoints.add(endpoint(operation));
+        }
+        return endpoints;
+    }
+
+    Request next() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (draw >= cumulativeWeights[i]) {
+            i++;
+        }
+        String operation = operations[i];
+        String products = reactiveReads ? "/api/reactive/products" : "/api/products";
+        return new Request(endpoint(operation), switch (operation) {
+            case "pdp" -> get(products + "/" + productId());
+            case "browse" -> get(products + "/category/" + Catalog.pick(random, Catalog.CATEGORIES));
+            case "search" -> search();
+            case "mget" -> mget();
+            case "bulk" -> bulk();
+            default -> throw new IllegalStateException(operation);
+        });
+    }
+
+    private String endpoint(String operation) {
+        return reactiveReads && REACTIVE_ENDPOINTS.containsKey(operation)
+                ? REACTIVE_ENDPOINTS.get(operation)
+                : ENDPOINTS.get(operation);
+    }
+
+    /**
+     * Cubing a uniform draw puts half the reads on the first eighth of the catalog.
+     */
+    private String productId() {
+        double r = random.nextDouble();
+        return "p-" + (int) (r * r * r * catalog.size());
+    }
+
+    private HttpRequest search() {
+        String text = Catalog.pick(random, Catalog.NOUNS);
+        if (random.nextBoolean()) {
+            text = Catalog.pick(random, Catalog.ADJECTIVES) + " " + text;
+        }
+        StringBuilder path = new StringBuilder("/api/products/_search?size=20&projection=card&q=")
+                .append(URLEncoder.encode(text, StandardCharsets.UTF_8));
+        if (random.nextInt(4) == 0) {
+            path.append("&category=").append(Catalog.pick(random, Catalog.CATEGORIES));
+        }
+        return get(path.toString());
+    }
+
+    private HttpRequest mget() {
+        List<String> ids = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            ids.add(productId());
+        }
+        return post("/api/products/_mget", "application/json", json(new MultiGetRequest(ids)));
+    }
+
+    private HttpRequest bulk() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < bulkSize; i++) {
+            body.append(json(catalog.newProduct(random))).append('\n');
+        }
+        return post("/api/products/_bulk", "application/x-ndjson", body.toString());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String contentType, String body) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(TIMEOUT)
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private String json(Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,8 +2,14 @@ package org.demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.elasticsearch.ReactiveElasticsearchRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.elasticsearch.ReactiveElasticsearchClientAutoConfiguration;
 
-@SpringBootApplication
+// The reactive client and repositories are opt-in, see org.demo.config.ReactiveReadsConfig
+@SpringBootApplication(exclude = {
+        ReactiveElasticsearchClientAutoConfiguration.class,
+        ReactiveElasticsearchRepositoriesAutoConfiguration.class
+})
 public class ElasticsearchSpringSearchflowApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,15 @@
+package org.demo.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between application nodes. The default implementation only
+ * delivers locally; register a bean backed by a message broker to keep several nodes coherent.
+ * Implementations must deliver published keys to subscribers on the publishing node as well.
+ */
+public interface CacheInvalidationBus {
+
+    void publish(String cacheName, String key);
+
+    void subscribe(String cacheName, Consumer<String> listener);
+}
@@ -0,0 +1,208 @@
+package org.demo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.demo.client.ClusterFailures;
+import org.demo.dto.CacheStatsResponse;
+import org.demo.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Near cache for single-product lookups. Caffeine provides W-TinyLFU admission and eviction,
+ * so a burst of one-off ids cannot push the hot SKUs out. Concurrent misses for the same id
+ * share one load. Cached products are shared between requests and must not be mutated.
+ * <p>
+ * Every loaded product is also kept in a stale copy that outlives invalidation and expiry. When
+ * a load fails because the cluster is unavailable, the stale copy is served instead, so reads of
+ * known products keep working through an outage at the price of possibly outdated data. Invalidation
+ * drops the stale copy too, so a deleted product is not served from it.
+ * <p>
+ * Caffeine's bulk load does not hold the entries it loads, so an invalidation can land while an
+ * {@code _mget} is in flight and the pre-write product would then be cached after it. Each id
+ * therefore maps to a generation, striped to bound memory, that invalidation bumps; a product
+ * whose generation changed during its load is returned to the caller but not cached.
+ */
+@Component
+public class ProductCache {
+
+    public static final String NAME = "product-by-id";
+
+    // A power of two; ids sharing a stripe only cost each other an uncached load
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache<String, Product> cache;
+    private final Cache<String, Product> stale;
+    private final CacheInvalidationBus invalidationBus;
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ProductCache(CacheInvalidationBus invalidationBus,
+                        @Value("${products.cache.by-id.maximum-size:10000}") long maximumSize,
+                        @Value("${products.cache.by-id.expire-after-write:60s}") Duration expireAfterWrite,
+                        @Value("${products.cache.stale.expire-after-write:1h}") Duration staleExpireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.stale = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(staleExpireAfterWrite)
+                .build();
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(NAME, this::onInvalidated);
+    }
+
+    /**
+     * Returns the cached product or loads it. Products that don't exist are not cached.
+     */
+    public Optional<Product> get(String id, Function<String, Optional<Product>> loader) {
+        // Loaded while the product was written, handed to the caller but not cached
+        List<Product> uncached = new ArrayList<>(1);
+        Product product;
+        try {
+            product = cache.get(id, key -> {
+                long generation = generation(key);
+                Product loaded = loader.apply(key).orElse(null);
+                if (generation(key) != generation) {
+                    uncached.add(loaded);
+                    return null;
+                }
+                if (loaded != null) {
+                    stale.put(key, loaded);
+                } else {
+                    stale.invalidate(key);
+                }
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            Product fallback = ClusterFailures.causedByClusterFailure(e) ? stale.getIfPresent(id) : null;
+            if (fallback == null) {
+                throw e;
+            }
+            staleServed.incrementAndGet();
+            return Optional.of(fallback);
+        }
+        if (product == null && !uncached.isEmpty()) {
+            product = uncached.get(0);
+        }
+        return Optional.ofNullable(product);
+    }
+
+    /**
+     * Returns the cached products and loads the missing ones with a single call to the loader.
+     * Products that don't exist are neither cached nor returned.
+     */
+    public Map<String, Product> getAll(Collection<String> ids, Function<Set<String>, Map<String, Product>> loader) {
+        Map<String, Product> uncached = new ConcurrentHashMap<>();
+        Map<String, Long> loadedAt = new ConcurrentHashMap<>();
+        Map<String, Product> found;
+        try {
+            found = cache.getAll(ids, keys -> {
+                Set<String> missing = Set.copyOf(keys);
+                missing.forEach(key -> loadedAt.put(key, generation(key)));
+                Map<String, Product> loaded = new HashMap<>(loader.apply(missing));
+                missing.forEach(key -> {
+                    Product product = loaded.get(key);
+                    if (generation(key) != loadedAt.get(key)) {
+                        if (product != null) {
+                            uncached.put(key, loaded.remove(key));
+                        }
+                    } else if (product != null) {
+                        stale.put(key, product);
+                    } else {
+                        stale.invalidate(key);
+                    }
+                });
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            if (!ClusterFailures.causedByClusterFailure(e)) {
+                throw e;
+            }
+            // Only when every product is known, so that none is reported as missing by mistake
+            Map<String, Product> fallback = new LinkedHashMap<>();
+            int fromStale = 0;
+            for (String id : ids) {
+                Product product = cache.getIfPresent(id);
+                if (product == null) {
+                    product = stale.getIfPresent(id);
+                    if (product == null) {
+                        throw e;
+                    }
+                    fromStale++;
+                }
+                fallback.put(id, product);
+            }
+            staleServed.addAndGet(fromStale);
+            return fallback;
+        }
+
+        // An invalidation between the check above and Caffeine storing the result
+        loadedAt.forEach((key, generation) -> {
+            if (generation(key) != generation) {
+                cache.invalidate(key);
+                stale.invalidate(key);
+            }
+        });
+        if (uncached.isEmpty()) {
+            return found;
+        }
+        Map<String, Product> products = new LinkedHashMap<>();
+        for (String id : ids) {
+            Product product = found.containsKey(id) ? found.get(id) : uncached.get(id);
+            if (product != null) {
+                products.put(id, product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Drops the entry here and, through the bus, on every other node.
+     */
+    public void invalidate(String id) {
+        if (id != null) {
+            invalidationBus.publish(NAME, id);
+        }
+    }
+
+    private void onInvalidated(String id) {
+        // Bumped first, so a load finishing after the entry is dropped sees the change
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+        stale.invalidate(id);
+    }
+
+    private long generation(String id) {
+        return generations.get(stripe(id));
+    }
+
+    private static int stripe(String id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(NAME, stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), cache.estimatedSize(), stats.averageLoadPenalty() / 1_000_000,
+                null, null, staleServed.get());
+    }
+}
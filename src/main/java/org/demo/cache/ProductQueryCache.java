@@ -0,0 +1,155 @@
+package org.demo.cache;
+
+import org.demo.dto.CacheStatsResponse;
+import org.demo.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Result cache for the category and price-range list endpoints.
+ * <p>
+ * Keys carry a generation instead of being evicted on write: a write bumps the generation of
+ * every category it touches (and the global one, which price-range keys use), so older entries
+ * simply stop being reachable and age out. Price bounds are widened to bucket edges before the
+ * lookup and the cached superset is filtered to the exact bounds, so nearby ranges share entries.
+ * <p>
+ * Most writes do not refresh the index, so searches see them only after
+ * {@code products.index.refresh-interval}. Each generation therefore also records when its
+ * writes settle; results loaded before that are cached only until then.
+ */
+@Component
+public class ProductQueryCache {
+
+    private final QueryResultCache byCategory;
+    private final QueryResultCache byPriceRange;
+    private final QueryResultCache byCategoryAndMaxPrice;
+    private final double priceBucket;
+
+    private final long refreshIntervalNanos;
+
+    private final AtomicLong globalGeneration = new AtomicLong();
+    // Bumped by invalidateAll so that categories without their own counter are covered too
+    private final AtomicLong epoch = new AtomicLong();
+    private final Map<String, AtomicLong> categoryGenerations = new ConcurrentHashMap<>();
+    // System.nanoTime() from which the latest writes are visible to searches; only ever moved
+    // forward, so a racing write that read the clock earlier cannot shorten another's wait
+    private final AtomicLong globalSettledAt = new AtomicLong(System.nanoTime());
+    private final AtomicLong epochSettledAt = new AtomicLong(globalSettledAt.get());
+    private final Map<String, Long> categorySettledAt = new ConcurrentHashMap<>();
+
+    public ProductQueryCache(@Value("${products.cache.query.maximum-size:64MB}") DataSize maximumSize,
+                             @Value("${products.cache.query.max-entry-size:1MB}") DataSize maxEntrySize,
+                             @Value("${products.cache.query.expire-after-write:5m}") Duration expireAfterWrite,
+                             @Value("${products.cache.query.price-bucket:10}") double priceBucket,
+                             @Value("${products.cache.stale.expire-after-write:1h}") Duration staleExpireAfterWrite,
+                             @Value("${products.index.refresh-interval:1s}") Duration refreshInterval) {
+        long perCache = maximumSize.toBytes() / 3;
+        long perEntry = maxEntrySize.toBytes();
+        this.byCategory = new QueryResultCache("products-by-category", perCache, perEntry, expireAfterWrite, staleExpireAfterWrite);
+        this.byPriceRange = new QueryResultCache("products-by-price-range", perCache, perEntry, expireAfterWrite, staleExpireAfterWrite);
+        this.byCategoryAndMaxPrice = new QueryResultCache("products-by-category-max-price", perCache, perEntry, expireAfterWrite, staleExpireAfterWrite);
+        this.priceBucket = priceBucket;
+        this.refreshIntervalNanos = Math.max(0, refreshInterval.toNanos());
+    }
+
+    public List<Product> getByCategory(String category, Function<String, List<Product>> loader) {
+        return byCategory.get(category, categoryGeneration(category), categorySettledAt(category),
+                () -> loader.apply(category));
+    }
+
+    /**
+     * Bounds are inclusive, as in {@code findByPriceBetween}.
+     */
+    public List<Product> getByPriceRange(Double minPrice, Double maxPrice,
+                                         BiFunction<Double, Double, List<Product>> loader) {
+        double lower = bucketFloor(minPrice);
+        double upper = bucketCeil(maxPrice);
+        List<Product> bucket = byPriceRange.get(lower + ":" + upper, String.valueOf(globalGeneration.get()),
+                globalSettledAt.get(), () -> loader.apply(lower, upper));
+        return filter(bucket, product -> product.getPrice() >= minPrice && product.getPrice() <= maxPrice);
+    }
+
+    /**
+     * The upper bound is exclusive, as in {@code findByCategoryAndPriceLessThan}.
+     */
+    public List<Product> getByCategoryAndMaxPrice(String category, Double maxPrice,
+                                                  BiFunction<String, Double, List<Product>> loader) {
+        double upper = bucketCeil(maxPrice);
+        List<Product> bucket = byCategoryAndMaxPrice.get(category + ':' + upper, categoryGeneration(category),
+                categorySettledAt(category), () -> loader.apply(category, upper));
+        return filter(bucket, product -> product.getPrice() < maxPrice);
+    }
+
+    /**
+     * Makes every cached result that may contain products of these categories unreachable.
+     */
+    public void invalidateCategories(Collection<String> categories) {
+        long settledAt = System.nanoTime() + refreshIntervalNanos;
+        for (String category : categories) {
+            if (category != null) {
+                // Before the bump, so a load under the new generation never sees an older time
+                categorySettledAt.merge(category, settledAt, ProductQueryCache::later);
+                categoryGenerations.computeIfAbsent(category, c -> new AtomicLong()).incrementAndGet();
+            }
+        }
+        globalSettledAt.accumulateAndGet(settledAt, ProductQueryCache::later);
+        globalGeneration.incrementAndGet();
+    }
+
+    /**
+     * Makes every cached result unreachable.
+     */
+    public void invalidateAll() {
+        long settledAt = System.nanoTime() + refreshIntervalNanos;
+        epochSettledAt.accumulateAndGet(settledAt, ProductQueryCache::later);
+        globalSettledAt.accumulateAndGet(settledAt, ProductQueryCache::later);
+        epoch.incrementAndGet();
+        globalGeneration.incrementAndGet();
+    }
+
+    public List<CacheStatsResponse> stats() {
+        return List.of(byCategory.stats(), byPriceRange.stats(), byCategoryAndMaxPrice.stats());
+    }
+
+    private String categoryGeneration(String category) {
+        AtomicLong generation = categoryGenerations.get(category);
+        return epoch.get() + "." + (generation != null ? generation.get() : 0);
+    }
+
+    private long categorySettledAt(String category) {
+        Long settledAt = categorySettledAt.get(category);
+        long epochSettled = epochSettledAt.get();
+        return settledAt != null ? later(settledAt, epochSettled) : epochSettled;
+    }
+
+    // Math.max for System.nanoTime() values, which may wrap around
+    private static long later(long a, long b) {
+        return a - b > 0 ? a : b;
+    }
+
+    private double bucketFloor(double price) {
+        return Math.floor(price / priceBucket) * priceBucket;
+    }
+
+    private double bucketCeil(double price) {
+        return Math.ceil(price / priceBucket) * priceBucket;
+    }
+
+    private static List<Product> filter(List<Product> products, Predicate<Product> predicate) {
+        return products.stream()
+                .filter(product -> product.getPrice() != null && predicate.test(product))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,77 @@
+package org.demo.cache;
+
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.demo.model.Supplier;
+
+import java.util.List;
+
+/**
+ * Rough retained-heap estimate for cached products. Strings are counted at two bytes per char
+ * plus header, boxed numbers and timestamps at a flat rate; precise enough to bound cache memory.
+ */
+public final class ProductSizeEstimator {
+
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE = 8;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int BOXED_VALUE = 16;
+    private static final int INSTANT = 24;
+
+    private ProductSizeEstimator() {
+    }
+
+    public static long estimate(List<Product> products) {
+        long size = OBJECT_OVERHEAD + (long) products.size() * REFERENCE;
+        for (Product product : products) {
+            size += estimate(product);
+        }
+        return size;
+    }
+
+    public static long estimate(Product product) {
+        long size = OBJECT_OVERHEAD + 13L * REFERENCE
+                + string(product.getId())
+                + string(product.getName())
+                + string(product.getDescription())
+                + string(product.getCategory())
+                + string(product.getBrand())
+                + 4L * BOXED_VALUE
+                + 2L * INSTANT;
+        if (product.getSupplier() != null) {
+            size += estimate(product.getSupplier());
+        }
+        if (product.getReviews() != null) {
+            size += OBJECT_OVERHEAD + (long) product.getReviews().size() * REFERENCE;
+            for (ProductReview review : product.getReviews()) {
+                size += estimate(review);
+            }
+        }
+        return size;
+    }
+
+    private static long estimate(Supplier supplier) {
+        return OBJECT_OVERHEAD + 7L * REFERENCE
+                + string(supplier.getId())
+                + string(supplier.getName())
+                + string(supplier.getContactEmail())
+                + string(supplier.getContactPhone())
+                + string(supplier.getCountry())
+                + 2L * BOXED_VALUE;
+    }
+
+    private static long estimate(ProductReview review) {
+        return OBJECT_OVERHEAD + 8L * REFERENCE
+                + string(review.getId())
+                + string(review.getUserId())
+                + string(review.getUserName())
+                + string(review.getTitle())
+                + string(review.getComment())
+                + 2L * BOXED_VALUE
+                + INSTANT;
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+    }
+}
@@ -0,0 +1,120 @@
+package org.demo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.demo.client.ClusterFailures;
+import org.demo.dto.CacheStatsResponse;
+import org.demo.model.Product;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Weight-bounded cache of product lists for one endpoint. Results larger than the per-entry
+ * cap are returned but never cached, so one huge category cannot evict everything else.
+ * <p>
+ * Concurrent misses for the same key share one load. A write is visible to searches only after
+ * the next index refresh, so a result loaded before the writes of its generation have settled
+ * may miss them; it is kept only until they have, then loaded again.
+ * <p>
+ * The latest result per query, whatever its generation, is also kept as a stale copy, served
+ * when a load fails because the cluster is unavailable.
+ */
+class QueryResultCache {
+
+    private final String name;
+    private final long maxEntryBytes;
+    private final Cache<String, CachedResult> cache;
+    private final Cache<String, CachedResult> stale;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+
+    QueryResultCache(String name, long maxWeightBytes, long maxEntryBytes, Duration expireAfterWrite,
+                     Duration staleExpireAfterWrite) {
+        this.name = name;
+        this.maxEntryBytes = maxEntryBytes;
+        long expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, CachedResult result) -> (int) Math.min(result.bytes(), Integer.MAX_VALUE))
+                .expireAfter(new Expiry<String, CachedResult>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResult result, long currentTime) {
+                        return result.settled() ? expireAfterWriteNanos : Math.max(0, result.settledAt() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResult result, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, result, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResult result, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.stale = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, CachedResult result) -> (int) Math.min(result.bytes(), Integer.MAX_VALUE))
+                .expireAfterWrite(staleExpireAfterWrite)
+                .build();
+    }
+
+    /**
+     * @param query      identifies the query across generations
+     * @param generation changes whenever a write may have changed the result
+     * @param settledAt  {@link System#nanoTime()} from which the writes of this generation are
+     *                   visible to searches
+     */
+    List<Product> get(String query, String generation, long settledAt, Supplier<List<Product>> loader) {
+        String key = query + '@' + generation;
+        // Results over the entry cap are handed to the caller that loaded them, not cached
+        List<List<Product>> uncached = new ArrayList<>(1);
+        CachedResult cached;
+        try {
+            cached = cache.get(key, k -> {
+                boolean settled = System.nanoTime() - settledAt >= 0;
+                List<Product> products = List.copyOf(loader.get());
+                long bytes = ProductSizeEstimator.estimate(products);
+                if (bytes > maxEntryBytes) {
+                    rejected.incrementAndGet();
+                    uncached.add(products);
+                    return null;
+                }
+                CachedResult result = new CachedResult(products, bytes, settled, settledAt);
+                stale.put(query, result);
+                return result;
+            });
+        } catch (RuntimeException e) {
+            CachedResult fallback = ClusterFailures.causedByClusterFailure(e) ? stale.getIfPresent(query) : null;
+            if (fallback == null) {
+                throw e;
+            }
+            staleServed.incrementAndGet();
+            return fallback.products();
+        }
+        if (cached != null) {
+            return cached.products();
+        }
+        // Loaded here, or a concurrent load was too large to cache and this caller loads its own
+        return uncached.isEmpty() ? List.copyOf(loader.get()) : uncached.get(0);
+    }
+
+    CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        long bytes = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        return new CacheStatsResponse(name, stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), cache.estimatedSize(), stats.averageLoadPenalty() / 1_000_000,
+                bytes, rejected.get(), staleServed.get());
+    }
+
+    private record CachedResult(List<Product> products, long bytes, boolean settled, long settledAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package org.demo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.demo.dto.CacheStatsResponse;
+import org.demo.dto.ProductSuggestion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hot-prefix cache for autocomplete. Keystrokes from many users converge on the same short
+ * prefixes, so a small cache absorbs most of the traffic. Caffeine runs at most one load per
+ * key: identical prefixes arriving while a lookup is in flight wait for it instead of issuing
+ * their own. Entries are not invalidated on writes; new and renamed products show up once the
+ * short TTL expires.
+ */
+@Component
+public class SuggestionCache {
+
+    public static final String NAME = "product-suggestions";
+
+    private final Cache<String, List<ProductSuggestion>> cache;
+
+    public SuggestionCache(@Value("${products.suggest.cache-size:5000}") long maximumSize,
+                           @Value("${products.suggest.cache-ttl:10s}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public List<ProductSuggestion> get(String prefix, int size, Supplier<List<ProductSuggestion>> loader) {
+        return cache.get(size + ":" + prefix, key -> List.copyOf(loader.get()));
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(NAME, stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), cache.estimatedSize(), stats.averageLoadPenalty() / 1_000_000,
+                null, null, null);
+    }
+}
@@ -0,0 +1,54 @@
+package org.demo.client;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import org.demo.exception.ElasticsearchUnavailableException;
+import org.elasticsearch.client.ResponseException;
+
+import java.io.IOException;
+
+/**
+ * Tells failures of the cluster apart from failures of the request. I/O errors, timeouts, 5xx and
+ * 429 responses mean the cluster could not answer; 4xx responses are answers.
+ */
+public final class ClusterFailures {
+
+    private ClusterFailures() {
+    }
+
+    public static boolean isClusterFailure(Throwable error) {
+        if (error instanceof ElasticsearchUnavailableException) {
+            return true;
+        }
+        if (error instanceof ElasticsearchException response) {
+            return isClusterStatus(response.status());
+        }
+        if (error instanceof ResponseException response) {
+            return isClusterStatus(response.getResponse().getStatusLine().getStatusCode());
+        }
+        if (error instanceof IOException) {
+            return !(error.getCause() instanceof ResponseException response)
+                    || isClusterStatus(response.getResponse().getStatusLine().getStatusCode());
+        }
+        return false;
+    }
+
+    /**
+     * Whether the error or one of its causes is a cluster failure. Spring Data wraps client
+     * exceptions in its own, so repository callers need to look through the chain.
+     */
+    public static boolean causedByClusterFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (isClusterFailure(cause)) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    public static boolean isClusterStatus(int status) {
+        return status >= 500 || status == 429;
+    }
+}
@@ -0,0 +1,135 @@
+package org.demo.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution of idempotent reads. If a read has not completed after {@code delay}, the
+ * same read is sent again and whichever answers first wins; the other is cancelled. The client
+ * round-robins over the configured nodes, so the second attempt usually lands on another node
+ * and a single slow node stops setting the tail latency.
+ * <p>
+ * The delay should sit around the read p95, so roughly one read in twenty is duplicated. On top
+ * of that, at most {@code maxInFlight} hedges run at once, which caps the extra load when the
+ * whole cluster, not a single node, is slow. Only reads without side effects may be hedged.
+ */
+@Component
+public class HedgedReads {
+
+    private final boolean enabled;
+    private final long delayNanos;
+    private final Semaphore hedgePermits;
+    private final ExecutorService executor;
+    private final Counter hedged;
+    private final Counter hedgeWon;
+
+    public HedgedReads(@Value("${products.client.hedge.enabled:true}") boolean enabled,
+                       @Value("${products.client.hedge.delay:50ms}") Duration delay,
+                       @Value("${products.client.hedge.max-in-flight:16}") int maxInFlight,
+                       MeterRegistry registry) {
+        this.enabled = enabled;
+        this.delayNanos = delay.toNanos();
+        this.hedgePermits = new Semaphore(maxInFlight);
+        this.hedged = Counter.builder("elasticsearch.hedge.sent")
+                .description("Reads sent a second time because the first was slow")
+                .register(registry);
+        this.hedgeWon = Counter.builder("elasticsearch.hedge.won")
+                .description("Hedged reads answered by the second attempt")
+                .register(registry);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = enabled ? Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "hedged-read-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public <T> T read(Supplier<T> read) {
+        if (!enabled) {
+            return read.get();
+        }
+
+        CompletionService<T> attempts = new ExecutorCompletionService<>(executor);
+        Future<T> primary = attempts.submit(read::get);
+        Future<T> hedge = null;
+        boolean permitted = false;
+        try {
+            Future<T> first = attempts.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (first != null) {
+                return result(first);
+            }
+
+            permitted = hedgePermits.tryAcquire();
+            if (!permitted) {
+                return result(primary);
+            }
+            hedge = attempts.submit(read::get);
+            hedged.increment();
+
+            first = attempts.take();
+            try {
+                T value = result(first);
+                if (first == hedge) {
+                    hedgeWon.increment();
+                }
+                return value;
+            } catch (RuntimeException e) {
+                // One attempt failed; the other may still succeed
+                Future<T> second = attempts.take();
+                T value = result(second);
+                if (second == hedge) {
+                    hedgeWon.increment();
+                }
+                return value;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a read");
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+            if (permitted) {
+                hedgePermits.release();
+            }
+        }
+    }
+
+    private static <T> T result(Future<T> attempt) throws InterruptedException {
+        try {
+            return attempt.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
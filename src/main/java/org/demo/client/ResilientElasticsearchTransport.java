@@ -0,0 +1,198 @@
+package org.demo.client;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import org.apache.http.client.config.RequestConfig;
+import org.demo.exception.ElasticsearchUnavailableException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bounds how long, and whether at all, a request may wait on the cluster.
+ * <p>
+ * Deadlines are set per operation: reads and single-document writes get short socket timeouts,
+ * so one slow node cannot hold request threads for the client-wide timeout, while bulk, reindex
+ * task polling and index administration keep the client default. Failures that point at the
+ * cluster - I/O errors, timeouts, 5xx and 429 responses - feed a {@link CircuitBreaker}; while
+ * it is open, requests fail immediately with {@link ElasticsearchUnavailableException} and
+ * callers can fall back to cached data. 4xx responses are answers, not failures.
+ * <p>
+ * Requests sent with {@link #backgroundOptions()}, such as export pages, are long-running by
+ * design: they keep the client default timeout and bypass the breaker, so that neither a large
+ * page fails on the read deadline nor a slow one opens the circuit for interactive traffic.
+ */
+public class ResilientElasticsearchTransport implements ElasticsearchTransport {
+
+    private static final Set<String> READS = Set.of(
+            "es/get", "es/mget", "es/search", "es/msearch", "es/count", "es/exists", "es/scroll",
+            "es/open_point_in_time");
+    private static final Set<String> WRITES = Set.of(
+            "es/index", "es/create", "es/update", "es/delete", "es/close_point_in_time", "es/clear_scroll");
+
+    private final ElasticsearchTransport delegate;
+    private final CircuitBreaker breaker;
+    private final RequestConfig readConfig;
+    private final RequestConfig writeConfig;
+    private final TransportOptions backgroundOptions;
+
+    /**
+     * @param connectTimeout applied to every request with a deadline, since a per-request config
+     *                       replaces the client's
+     * @param poolTimeout    longest wait for a pooled connection, likewise
+     */
+    public ResilientElasticsearchTransport(ElasticsearchTransport delegate, CircuitBreaker breaker,
+                                           Duration connectTimeout, Duration poolTimeout,
+                                           Duration readTimeout, Duration writeTimeout) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.readConfig = requestConfig(connectTimeout, poolTimeout, readTimeout);
+        this.writeConfig = requestConfig(connectTimeout, poolTimeout, writeTimeout);
+        // A copy, so that requests made with it can be told apart by identity
+        this.backgroundOptions = delegate.options().toBuilder().build();
+    }
+
+    public CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    /**
+     * Options for long-running reads, to be used with {@code ElasticsearchClient.withTransportOptions}.
+     */
+    public TransportOptions backgroundOptions() {
+        return backgroundOptions;
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) throws IOException {
+        if (options == backgroundOptions) {
+            return delegate.performRequest(request, endpoint, options);
+        }
+        acquire(endpoint);
+        Throwable error = null;
+        boolean succeeded = false;
+        try {
+            ResponseT response = delegate.performRequest(request, endpoint, withDeadline(endpoint, options));
+            succeeded = true;
+            return response;
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            // Every permitted call reports an outcome, or a half-open breaker would wait for it forever
+            if (succeeded) {
+                breaker.onSuccess();
+            } else {
+                onError(error);
+            }
+        }
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) {
+        if (options == backgroundOptions) {
+            return delegate.performRequestAsync(request, endpoint, options);
+        }
+        try {
+            acquire(endpoint);
+        } catch (ElasticsearchUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<ResponseT> response;
+        try {
+            response = delegate.performRequestAsync(request, endpoint, withDeadline(endpoint, options));
+        } catch (RuntimeException | Error e) {
+            onError(e);
+            throw e;
+        }
+        return response.whenComplete((result, error) -> {
+            if (error == null) {
+                breaker.onSuccess();
+            } else {
+                onError(error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+    }
+
+    @Override
+    public JsonpMapper jsonpMapper() {
+        return delegate.jsonpMapper();
+    }
+
+    @Override
+    public TransportOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private void acquire(Endpoint<?, ?, ?> endpoint) {
+        if (!breaker.tryAcquire()) {
+            throw new ElasticsearchUnavailableException(
+                    "Elasticsearch circuit breaker is " + breaker.state() + ", rejected " + endpoint.id());
+        }
+    }
+
+    /**
+     * @param error null when the call ended without an exception it declares, such as on an
+     *              {@link Error}
+     */
+    private void onError(Throwable error) {
+        // Mapping and validation errors on our side, and 4xx answers, say nothing about the
+        // cluster. A call that was interrupted or cancelled, or that ended in an Error, has no
+        // known outcome and counts as failed
+        if (error == null || error instanceof Error || isAbandoned(error) || ClusterFailures.isClusterFailure(error)) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private static boolean isAbandoned(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            // The rest client wraps an interrupt while waiting for the response in a RuntimeException
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+                    || cause instanceof CancellationException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private TransportOptions withDeadline(Endpoint<?, ?, ?> endpoint, TransportOptions options) {
+        RequestConfig config = READS.contains(endpoint.id()) ? readConfig
+                : WRITES.contains(endpoint.id()) ? writeConfig
+                : null;
+        TransportOptions base = options != null ? options : delegate.options();
+        if (config == null || !(base instanceof RestClientOptions restOptions)) {
+            return options;
+        }
+        return new RestClientOptions(restOptions.restClientRequestOptions().toBuilder()
+                .setRequestConfig(config)
+                .build());
+    }
+
+    private static RequestConfig requestConfig(Duration connectTimeout, Duration poolTimeout, Duration socketTimeout) {
+        return RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) poolTimeout.toMillis())
+                .setSocketTimeout((int) socketTimeout.toMillis())
+                .build();
+    }
+}
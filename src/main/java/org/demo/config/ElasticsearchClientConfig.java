@@ -0,0 +1,111 @@
+package org.demo.config;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.demo.client.CircuitBreaker;
+import org.demo.client.ResilientElasticsearchTransport;
+import org.demo.metrics.InstrumentedElasticsearchTransport;
+import org.demo.metrics.SlowQueryLog;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.elasticsearch.RestClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The client stack between the repositories and the cluster. Spring Boot builds the low-level
+ * {@link RestClient} from {@code spring.elasticsearch.*} (uris, connect and socket timeouts);
+ * this adds connection pool sizing, gzip and keep-alive limits to it, and replaces Boot's
+ * transport with one that applies per-operation deadlines and a circuit breaker on top of the
+ * metrics. The typed client, the Spring Data templates and the reactive client all share it.
+ */
+@Configuration
+public class ElasticsearchClientConfig {
+
+    @Bean
+    public RestClientBuilderCustomizer connectionPoolCustomizer(
+            @Value("${products.client.max-connections:100}") int maxConnections,
+            @Value("${products.client.max-connections-per-route:50}") int maxConnectionsPerRoute,
+            @Value("${products.client.pool-timeout:500ms}") Duration poolTimeout,
+            @Value("${products.client.keep-alive:60s}") Duration keepAlive,
+            @Value("${products.client.compression:true}") boolean compression) {
+        return new RestClientBuilderCustomizer() {
+            @Override
+            public void customize(RestClientBuilder builder) {
+                // Gzips request bodies and asks for gzipped responses
+                builder.setCompressionEnabled(compression);
+            }
+
+            @Override
+            public void customize(HttpAsyncClientBuilder builder) {
+                // The client defaults (30 in total, 10 per node) queue requests long before the cluster is busy
+                builder.setMaxConnTotal(maxConnections);
+                builder.setMaxConnPerRoute(maxConnectionsPerRoute);
+                // Don't reuse connections a load balancer or firewall may already have dropped
+                builder.setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+                });
+            }
+
+            @Override
+            public void customize(RequestConfig.Builder builder) {
+                builder.setConnectionRequestTimeout((int) poolTimeout.toMillis());
+            }
+        };
+    }
+
+    @Bean
+    public CircuitBreaker elasticsearchCircuitBreaker(
+            @Value("${products.client.breaker.window-size:100}") int windowSize,
+            @Value("${products.client.breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${products.client.breaker.failure-rate:0.5}") double failureRate,
+            @Value("${products.client.breaker.open-duration:10s}") Duration openDuration,
+            @Value("${products.client.breaker.half-open-calls:5}") int halfOpenCalls,
+            MeterRegistry registry) {
+        CircuitBreaker breaker = new CircuitBreaker(windowSize, minimumCalls, failureRate, openDuration, halfOpenCalls);
+        Gauge.builder("elasticsearch.circuit.state", breaker, b -> b.state().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .register(registry);
+        return breaker;
+    }
+
+    /**
+     * Replaces Spring Boot's transport. Boot only defines its JsonpMapper alongside its own
+     * transport, so the same default is applied here.
+     */
+    @Bean
+    public ElasticsearchTransport elasticsearchTransport(
+            RestClient restClient,
+            ObjectProvider<JsonpMapper> jsonpMapper,
+            ObjectProvider<TransportOptions> transportOptions,
+            CircuitBreaker elasticsearchCircuitBreaker,
+            MeterRegistry registry,
+            @Value("${spring.elasticsearch.connection-timeout:1s}") Duration connectTimeout,
+            @Value("${products.client.pool-timeout:500ms}") Duration poolTimeout,
+            @Value("${products.client.read-timeout:2s}") Duration readTimeout,
+            @Value("${products.client.write-timeout:5s}") Duration writeTimeout,
+            @Value("${products.metrics.slow-query.threshold:500ms}") Duration slowQueryThreshold,
+            @Value("${products.metrics.slow-query.sample-rate:0.1}") double slowQuerySampleRate,
+            @Value("${products.metrics.slow-query.max-length:2000}") int slowQueryMaxLength) {
+        RestClientTransport transport = new RestClientTransport(restClient,
+                jsonpMapper.getIfAvailable(JacksonJsonpMapper::new), transportOptions.getIfAvailable());
+        // Metrics inside the breaker, so that they only count requests that reached the cluster
+        InstrumentedElasticsearchTransport instrumented = new InstrumentedElasticsearchTransport(transport, registry,
+                new SlowQueryLog(slowQueryThreshold, slowQuerySampleRate, slowQueryMaxLength));
+        return new ResilientElasticsearchTransport(instrumented, elasticsearchCircuitBreaker,
+                connectTimeout, poolTimeout, readTimeout, writeTimeout);
+    }
+}
@@ -0,0 +1,41 @@
+package org.demo.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Opt-in virtual-thread execution ({@code products.execution.virtual-threads=true}, Java 21+).
+ * <p>
+ * Tomcat runs each request on its own virtual thread instead of a pooled platform thread, so a
+ * request blocked on Elasticsearch no longer holds one of the {@code server.tomcat.threads.max}
+ * workers. The same executor backs Spring MVC async work, which covers the streaming list
+ * endpoint. Repository calls stay blocking and simply run on the calling virtual thread.
+ * Concurrency towards the cluster is then bounded by the client connection pool rather than by
+ * the servlet thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "products.execution.virtual-threads", havingValue = "true")
+public class ExecutionConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        return VirtualThreads.newPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
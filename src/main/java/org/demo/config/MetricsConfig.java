@@ -0,0 +1,29 @@
+package org.demo.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.demo.metrics.ResponseSizeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics exposed at {@code /actuator/prometheus}. Endpoint timers ({@code http.server.requests})
+ * and repository method timers ({@code spring.data.repository.invocations}) come from Spring
+ * Boot, with percentile histograms switched on in application.properties. Service methods
+ * annotated with {@code @Timed} are timed by the aspect below and response sizes by the filter;
+ * Elasticsearch requests and the slow query log are instrumented on the client transport, see
+ * {@link ElasticsearchClientConfig}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public ResponseSizeFilter responseSizeFilter(MeterRegistry registry) {
+        return new ResponseSizeFilter(registry);
+    }
+}
@@ -0,0 +1,37 @@
+package org.demo.config;
+
+import co.elastic.clients.transport.ElasticsearchTransport;
+import org.demo.repository.ProductReactiveRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.repository.config.EnableReactiveElasticsearchRepositories;
+
+/**
+ * Reactive Elasticsearch client and repositories for the opt-in reactive read endpoints
+ * ({@code products.execution.reactive-reads=true}).
+ * <p>
+ * Boot would otherwise configure them as soon as reactor-core is on the classpath, so their
+ * auto-configuration is excluded in {@code ElasticsearchSpringSearchflowApplication} and the
+ * beans only exist in this mode. The client shares the blocking client's transport, and with it
+ * the connection pool, deadlines and circuit breaker.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "products.execution.reactive-reads", havingValue = "true")
+@EnableReactiveElasticsearchRepositories(basePackageClasses = ProductReactiveRepository.class)
+public class ReactiveReadsConfig {
+
+    @Bean
+    public ReactiveElasticsearchClient reactiveElasticsearchClient(ElasticsearchTransport elasticsearchTransport) {
+        return new ReactiveElasticsearchClient(elasticsearchTransport);
+    }
+
+    @Bean
+    public ReactiveElasticsearchTemplate reactiveElasticsearchTemplate(ReactiveElasticsearchClient reactiveElasticsearchClient,
+                                                                       ElasticsearchConverter elasticsearchConverter) {
+        return new ReactiveElasticsearchTemplate(reactiveElasticsearchClient, elasticsearchConverter);
+    }
+}
@@ -0,0 +1,53 @@
+package org.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.demo.cache.ProductCache;
+import org.demo.cache.ProductQueryCache;
+import org.demo.cache.SuggestionCache;
+import org.demo.dto.CacheStatsResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache Management", description = "APIs for inspecting application-side caches")
+public class CacheController {
+
+    private final ProductCache productCache;
+    private final ProductQueryCache productQueryCache;
+    private final SuggestionCache suggestionCache;
+
+    public CacheController(ProductCache productCache, ProductQueryCache productQueryCache,
+                           SuggestionCache suggestionCache) {
+        this.productCache = productCache;
+        this.productQueryCache = productQueryCache;
+        this.suggestionCache = suggestionCache;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get cache statistics",
+            description = "Hit ratio, evictions, entries and estimated bytes held by each cache")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = CacheStatsResponse.class))))
+    })
+    public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+        List<CacheStatsResponse> stats = new ArrayList<>();
+        stats.add(productCache.stats());
+        stats.addAll(productQueryCache.stats());
+        stats.add(suggestionCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+}
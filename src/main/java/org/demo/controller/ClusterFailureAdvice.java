@@ -0,0 +1,33 @@
+package org.demo.controller;
+
+import org.demo.client.ClusterFailures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers 503 when a request failed because Elasticsearch could not answer: the circuit breaker
+ * is open, or the cluster timed out or returned 5xx/429. Handlers map the failures they expect
+ * themselves; anything else stays a 500.
+ */
+@RestControllerAdvice
+public class ClusterFailureAdvice {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterFailureAdvice.class);
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Void> handle(RuntimeException e) {
+        if (ClusterFailures.causedByClusterFailure(e)) {
+            log.warn("Elasticsearch unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        log.error("Request failed", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    }
+}
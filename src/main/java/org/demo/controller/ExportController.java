@@ -0,0 +1,91 @@
+package org.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.demo.dto.ExportStatus;
+import org.demo.export.ExportFormat;
+import org.demo.service.ProductExportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/exports")
+@Tag(name = "Export", description = "APIs for exporting a snapshot of all products to files")
+public class ExportController {
+
+    private final ProductExportService productExportService;
+
+    public ExportController(ProductExportService productExportService) {
+        this.productExportService = productExportService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Start an export",
+            description = "Write a point-in-time snapshot of all products into gzip-compressed part files on the "
+                    + "server, one per slice, read in parallel. 'ndjson' keeps whole documents, 'csv' the flat "
+                    + "product attributes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export started",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ExportStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown format"),
+            @ApiResponse(responseCode = "409", description = "An export is already running")
+    })
+    public ResponseEntity<ExportStatus> startExport(
+            @Parameter(description = "File format: ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(productExportService.start(exportFormat));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/{id}/_resume")
+    @Operation(summary = "Resume an export",
+            description = "Continue a failed or interrupted export from its last checkpoints. Only possible while "
+                    + "its point in time is still alive")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export resumed",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ExportStatus.class))),
+            @ApiResponse(responseCode = "404", description = "Export not found"),
+            @ApiResponse(responseCode = "409", description = "An export is already running or this one has completed")
+    })
+    public ResponseEntity<ExportStatus> resumeExport(
+            @Parameter(description = "Export ID", required = true) @PathVariable String id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(productExportService.resume(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping
+    @Operation(summary = "Get export status",
+            description = "Documents and compressed bytes written so far by the running export, or the outcome of the last one")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ExportStatus.class)))
+    })
+    public ResponseEntity<ExportStatus> getExportStatus() {
+        return ResponseEntity.ok(productExportService.status());
+    }
+}
@@ -0,0 +1,55 @@
+package org.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.demo.dto.ReindexStatus;
+import org.demo.service.ProductReindexService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/index")
+@Tag(name = "Index Management", description = "APIs for rebuilding the product index behind its alias")
+public class IndexController {
+
+    private final ProductReindexService productReindexService;
+
+    public IndexController(ProductReindexService productReindexService) {
+        this.productReindexService = productReindexService;
+    }
+
+    @PostMapping("/_reindex")
+    @Operation(summary = "Start a reindex",
+            description = "Copy the current index into a new versioned index built from the latest template, "
+                    + "then swap the alias. Writes are only rejected for the final catch-up and the swap; reads are not affected")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reindex started",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReindexStatus.class))),
+            @ApiResponse(responseCode = "409", description = "A reindex is already running or there is no index to copy")
+    })
+    public ResponseEntity<ReindexStatus> startReindex() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(productReindexService.start());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/_reindex")
+    @Operation(summary = "Get reindex status", description = "Progress or outcome of the last reindex")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReindexStatus.class)))
+    })
+    public ResponseEntity<ReindexStatus> getReindexStatus() {
+        return ResponseEntity.ok(productReindexService.status());
+    }
+}
@@ -1,25 +1,59 @@
 package org.demo.controller;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.demo.dto.BulkIngestResponse;
+import org.demo.dto.MultiGetRequest;
+import org.demo.dto.MultiGetResponse;
+import org.demo.dto.ProductPatch;
+import org.demo.dto.ProductSearchResponse;
+import org.demo.dto.ProductSuggestion;
+import org.demo.dto.ReviewPageResponse;
 import org.demo.exception.ProductAlreadyExistsException;
+import org.demo.exception.ProductNotFoundException;
+import org.demo.model.InventoryDelta;
 import org.demo.model.Product;
+import org.demo.model.ProductFields;
+import org.demo.model.ProductReview;
+import org.demo.repository.ProductReviewPage;
+import org.demo.repository.ProductSearchPage;
+import org.demo.repository.ProductSearchQuery;
+import org.demo.service.InventoryFeedService;
+import org.demo.service.ProductBulkService;
+import org.demo.service.ProductCursor;
 import org.demo.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/products")
@@ -28,20 +62,64 @@ import java.util.Optional;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final InventoryFeedService inventoryFeedService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter productWriter;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductBulkService productBulkService,
+                             InventoryFeedService inventoryFeedService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productBulkService = productBulkService;
+        this.inventoryFeedService = inventoryFeedService;
+        this.objectMapper = objectMapper;
+        // Flush once per page rather than once per product
+        this.productWriter = objectMapper.writerFor(Product.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
-    @GetMapping
-    @Operation(summary = "Get all products", description = "Retrieve a list of all products from Elasticsearch")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Get all products",
+            description = "Stream products from Elasticsearch page by page using a point in time. "
+                    + "Send Accept: application/x-ndjson for one product per line. When a limit or "
+                    + "continuation token is given, the JSON response is wrapped as {products, continuationToken} "
+                    + "and NDJSON ends with a {\"continuationToken\": ...} line")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved products",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
+                    content = {
+                            @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)),
+                            @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = Product.class))
+                    }),
+            @ApiResponse(responseCode = "400", description = "Invalid continuation token, or a limit below 1")
     })
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<StreamingResponseBody> getAllProducts(
+            @Parameter(description = "Continuation token returned by a previous call")
+            @RequestParam(required = false) String continuationToken,
+            @Parameter(description = "Products fetched from Elasticsearch per round trip")
+            @RequestParam(defaultValue = "500") int pageSize,
+            @Parameter(description = "Maximum number of products to return before handing out a continuation token")
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        if (limit != null && limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProductCursor cursor;
+        try {
+            cursor = continuationToken != null ? ProductCursor.decode(continuationToken) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean resumable = continuationToken != null || limit != null;
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> writeNdjson(out, cursor, pageSize, limit, resumable));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeJson(out, cursor, pageSize, limit, resumable));
     }
 
     @GetMapping("/{id}")
@@ -58,6 +136,29 @@ public class ProductController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/_mget")
+    @Operation(summary = "Get products by IDs",
+            description = "Retrieve up to 1000 products in one request; those not cached are fetched in a single round trip")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products found, in request order, and the IDs that were not",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = MultiGetResponse.class))),
+            @ApiResponse(responseCode = "400", description = "No IDs or too many IDs")
+    })
+    public ResponseEntity<MultiGetResponse> getProductsByIds(
+            @Parameter(description = "Product IDs", required = true) @RequestBody MultiGetRequest request) {
+        try {
+            List<Product> products = productService.getProductsByIds(request.getIds());
+            Set<String> found = products.stream().map(Product::getId).collect(Collectors.toSet());
+            List<String> missing = request.getIds().stream()
+                    .filter(id -> !found.contains(id))
+                    .distinct()
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(new MultiGetResponse(products, missing));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Controller
     @PostMapping
     @Operation(summary = "Create new product", description = "Create a new product in Elasticsearch with relations")
@@ -65,7 +166,8 @@ public class ProductController {
             @ApiResponse(responseCode = "201", description = "Product created successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
             @ApiResponse(responseCode = "400", description = "Invalid product data"),
-            @ApiResponse(responseCode = "409", description = "Product with same name already exists")
+            @ApiResponse(responseCode = "409", description = "Product with same name already exists"),
+            @ApiResponse(responseCode = "503", description = "Elasticsearch unavailable")
     })
     public ResponseEntity<Product> createProduct(
             @Parameter(description = "Product to create", required = true)
@@ -76,18 +178,52 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.CREATED).body(savedProduct);
         } catch (ProductAlreadyExistsException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
+    @PostMapping(value = "/_bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Bulk ingest products",
+            description = "Stream newline-delimited products into Elasticsearch using batched, concurrent _bulk requests")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ingest finished, see per-item results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkIngestResponse.class)))
+    })
+    public ResponseEntity<BulkIngestResponse> bulkIngest(
+            @Parameter(description = "Also report successfully indexed items, not only failures")
+            @RequestParam(defaultValue = "false") boolean verbose,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(productBulkService.ingest(body, verbose));
+    }
+
+    @PostMapping("/_deltas")
+    @Operation(summary = "Submit inventory deltas",
+            description = "Queue stock/price changes; they are coalesced per product and written in batches")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Deltas accepted"),
+            @ApiResponse(responseCode = "400", description = "Invalid delta")
+    })
+    public ResponseEntity<Void> submitDeltas(
+            @Parameter(description = "Stock and price changes", required = true)
+            @RequestBody List<InventoryDelta> deltas) {
+        try {
+            inventoryFeedService.submit(deltas);
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update product", description = "Update an existing product by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
             @ApiResponse(responseCode = "404", description = "Product not found"),
-            @ApiResponse(responseCode = "400", description = "Invalid product data")
+            @ApiResponse(responseCode = "400", description = "Invalid product data"),
+            @ApiResponse(responseCode = "409", description = "Product was modified concurrently"),
+            @ApiResponse(responseCode = "503", description = "Elasticsearch unavailable")
     })
     public ResponseEntity<Product> updateProduct(
             @Parameter(description = "Product ID", required = true) @PathVariable String id,
@@ -96,7 +232,82 @@ public class ProductController {
         try {
             Product updatedProduct = productService.updateProduct(id, productDetails);
             return ResponseEntity.ok(updatedProduct);
-        } catch (RuntimeException e) {
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ProductNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(summary = "Partially update product",
+            description = "Change only the given fields with a single partial-document update; the given fields win over concurrent writes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Product updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid or empty patch"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Name already taken, or concurrent updates kept conflicting"),
+            @ApiResponse(responseCode = "503", description = "Elasticsearch unavailable")
+    })
+    public ResponseEntity<Void> patchProduct(
+            @Parameter(description = "Product ID", required = true) @PathVariable String id,
+            @Parameter(description = "Fields to change", required = true)
+            @Valid @RequestBody ProductPatch patch) {
+        try {
+            productService.patchProduct(id, patch);
+            return ResponseEntity.noContent().build();
+        } catch (ProductAlreadyExistsException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ProductNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{id}/reviews")
+    @Operation(summary = "Add product review",
+            description = "Append a review and update the rating aggregates without rewriting existing reviews")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Review added successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductReview.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid review data"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "503", description = "Elasticsearch unavailable")
+    })
+    public ResponseEntity<ProductReview> addReview(
+            @Parameter(description = "Product ID", required = true) @PathVariable String id,
+            @Parameter(description = "Review to add", required = true)
+            @Valid @RequestBody ProductReview review) {
+        try {
+            ProductReview savedReview = productService.addReview(id, review);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedReview);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ProductNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{id}/reviews")
+    @Operation(summary = "List product reviews", description = "Page through a product's reviews, newest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reviews retrieved successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReviewPageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid page or size"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "503", description = "Elasticsearch unavailable")
+    })
+    public ResponseEntity<ReviewPageResponse> getReviews(
+            @Parameter(description = "Product ID", required = true) @PathVariable String id,
+            @Parameter(description = "Zero-based page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Reviews per page, at most 100") @RequestParam(defaultValue = "20") int size) {
+        try {
+            ProductReviewPage reviews = productService.getReviews(id, page, size);
+            return ResponseEntity.ok(new ReviewPageResponse(reviews.getReviews(), reviews.getTotal(), page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ProductNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -113,42 +324,131 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/_search")
+    @Operation(summary = "Full-text product search",
+            description = "Relevance-ranked search over name, brand and description with category, brand, price and "
+                    + "rating filters, one page of hits and facet counts, in a single Elasticsearch request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search completed successfully",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSearchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid paging, price bounds, projection or field")
+    })
+    public ResponseEntity<MappingJacksonValue> fullTextSearch(
+            @Parameter(description = "Search text; omit to browse by filters only")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Categories to include (repeatable)")
+            @RequestParam(required = false) List<String> category,
+            @Parameter(description = "Brands to include (repeatable)")
+            @RequestParam(required = false) List<String> brand,
+            @Parameter(description = "Minimum price, inclusive") @RequestParam(required = false) Double minPrice,
+            @Parameter(description = "Maximum price, inclusive") @RequestParam(required = false) Double maxPrice,
+            @Parameter(description = "Minimum average rating") @RequestParam(required = false) Double minRating,
+            @Parameter(description = "Zero-based page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Hits per page, at most 100") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Named projection: full (default), summary or card")
+            @RequestParam(required = false) String projection,
+            @Parameter(description = "Comma-separated fields to return; overrides the projection")
+            @RequestParam(required = false) String fields) {
+        try {
+            ProductFields selected = ProductFields.of(projection, fields);
+            ProductSearchQuery query = new ProductSearchQuery(q, category, brand, minPrice, maxPrice, minRating,
+                    page, size, selected.isAll() ? null : selected.includes());
+            ProductSearchPage result = productService.searchProducts(query);
+            return withFields(new ProductSearchResponse(result.getProducts(), result.getTotal(),
+                    result.isTotalExact(), page, size, result.getFacets()), selected);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplete products",
+            description = "Products whose name or brand words start with the typed prefix, for search-as-you-type")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = ProductSuggestion.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid size or prefix too long")
+    })
+    public ResponseEntity<List<ProductSuggestion>> suggest(
+            @Parameter(description = "Text typed so far", required = true) @RequestParam String prefix,
+            @Parameter(description = "Maximum suggestions, at most 20") @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(productService.suggest(prefix, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/search")
     @Operation(summary = "Search products", description = "Search products by name using text matching")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Search completed successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown projection or field")
     })
-    public ResponseEntity<List<Product>> searchProducts(
+    public ResponseEntity<MappingJacksonValue> searchProducts(
             @Parameter(description = "Product name to search for", required = true)
-            @RequestParam String name) {
-        List<Product> products = productService.searchProductsByName(name);
-        return ResponseEntity.ok(products);
+            @RequestParam String name,
+            @Parameter(description = "Named projection: full (default), summary or card")
+            @RequestParam(required = false) String projection,
+            @Parameter(description = "Comma-separated fields to return; overrides the projection")
+            @RequestParam(required = false) String fields) {
+        ProductFields selected;
+        try {
+            selected = ProductFields.of(projection, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Product> products = productService.searchProductsByName(name, selected);
+        return withFields(products, selected);
     }
 
     @GetMapping("/category/{category}")
     @Operation(summary = "Get products by category", description = "Retrieve all products in a specific category")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Products retrieved successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown projection or field")
     })
-    public ResponseEntity<List<Product>> getProductsByCategory(
-            @Parameter(description = "Product category", required = true) @PathVariable String category) {
-        List<Product> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<MappingJacksonValue> getProductsByCategory(
+            @Parameter(description = "Product category", required = true) @PathVariable String category,
+            @Parameter(description = "Named projection: full (default), summary or card")
+            @RequestParam(required = false) String projection,
+            @Parameter(description = "Comma-separated fields to return; overrides the projection")
+            @RequestParam(required = false) String fields) {
+        ProductFields selected;
+        try {
+            selected = ProductFields.of(projection, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Product> products = productService.getProductsByCategory(category, selected);
+        return withFields(products, selected);
     }
 
     @GetMapping("/price-range")
     @Operation(summary = "Get products by price range", description = "Retrieve products within a specific price range")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Products retrieved successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown projection or field")
     })
-    public ResponseEntity<List<Product>> getProductsByPriceRange(
+    public ResponseEntity<MappingJacksonValue> getProductsByPriceRange(
             @Parameter(description = "Minimum price", required = true) @RequestParam Double minPrice,
-            @Parameter(description = "Maximum price", required = true) @RequestParam Double maxPrice) {
-        List<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice);
-        return ResponseEntity.ok(products);
+            @Parameter(description = "Maximum price", required = true) @RequestParam Double maxPrice,
+            @Parameter(description = "Named projection: full (default), summary or card")
+            @RequestParam(required = false) String projection,
+            @Parameter(description = "Comma-separated fields to return; overrides the projection")
+            @RequestParam(required = false) String fields) {
+        ProductFields selected;
+        try {
+            selected = ProductFields.of(projection, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice, selected);
+        return withFields(products, selected);
     }
 
     @GetMapping("/category/{category}/max-price/{maxPrice}")
@@ -156,12 +456,74 @@ public class ProductController {
             description = "Retrieve products in a category under a maximum price")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Products retrieved successfully",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown projection or field")
     })
-    public ResponseEntity<List<Product>> getProductsByCategoryAndMaxPrice(
+    public ResponseEntity<MappingJacksonValue> getProductsByCategoryAndMaxPrice(
             @Parameter(description = "Product category", required = true) @PathVariable String category,
-            @Parameter(description = "Maximum price", required = true) @PathVariable Double maxPrice) {
-        List<Product> products = productService.getProductsByCategoryAndMaxPrice(category, maxPrice);
-        return ResponseEntity.ok(products);
+            @Parameter(description = "Maximum price", required = true) @PathVariable Double maxPrice,
+            @Parameter(description = "Named projection: full (default), summary or card")
+            @RequestParam(required = false) String projection,
+            @Parameter(description = "Comma-separated fields to return; overrides the projection")
+            @RequestParam(required = false) String fields) {
+        ProductFields selected;
+        try {
+            selected = ProductFields.of(projection, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Product> products = productService.getProductsByCategoryAndMaxPrice(category, maxPrice, selected);
+        return withFields(products, selected);
+    }
+
+    private ResponseEntity<MappingJacksonValue> withFields(Object value, ProductFields fields) {
+        MappingJacksonValue body = new MappingJacksonValue(value);
+        if (!fields.isAll()) {
+            body.setFilters(new SimpleFilterProvider().addFilter(ProductFields.FILTER_ID,
+                    SimpleBeanPropertyFilter.filterOutAllExcept(fields.names())));
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    private void writeNdjson(OutputStream out, ProductCursor cursor, int pageSize, Integer limit,
+                             boolean resumable) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .setRootValueSeparator(null);
+        String next = productService.streamProducts(cursor, pageSize, limit, page -> {
+            for (Product product : page) {
+                productWriter.writeValue(generator, product);
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        });
+        if (resumable) {
+            generator.writeStartObject();
+            generator.writeStringField("continuationToken", next);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeJson(OutputStream out, ProductCursor cursor, int pageSize, Integer limit,
+                           boolean resumable) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        if (resumable) {
+            generator.writeStartObject();
+            generator.writeFieldName("products");
+        }
+        generator.writeStartArray();
+        String next = productService.streamProducts(cursor, pageSize, limit, page -> {
+            for (Product product : page) {
+                productWriter.writeValue(generator, product);
+            }
+            generator.flush();
+        });
+        generator.writeEndArray();
+        if (resumable) {
+            generator.writeStringField("continuationToken", next);
+            generator.writeEndObject();
+        }
+        generator.flush();
     }
-}
\ No newline at end of file
+}
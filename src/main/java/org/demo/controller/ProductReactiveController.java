@@ -0,0 +1,82 @@
+package org.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.demo.model.Product;
+import org.demo.service.ProductReactiveService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variants of the read endpoints. Spring MVC subscribes to the returned publishers and
+ * completes the response asynchronously, releasing the servlet thread while Elasticsearch works.
+ * {@code application/json} collects the results into one array; {@code application/x-ndjson}
+ * streams them as they arrive.
+ */
+@RestController
+@RequestMapping("/api/reactive/products")
+@ConditionalOnProperty(name = "products.execution.reactive-reads", havingValue = "true")
+@Tag(name = "Product Reads (reactive)", description = "Non-blocking read APIs backed by a reactive repository")
+public class ProductReactiveController {
+
+    private final ProductReactiveService productReactiveService;
+
+    public ProductReactiveController(ProductReactiveService productReactiveService) {
+        this.productReactiveService = productReactiveService;
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get product by ID", description = "Retrieve a specific product by its ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Product found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    public Mono<ResponseEntity<Product>> getProductById(
+            @Parameter(description = "Product ID", required = true) @PathVariable String id) {
+        return productReactiveService.getProductById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Search products", description = "Search products by name using text matching")
+    public Flux<Product> searchProducts(
+            @Parameter(description = "Product name to search for", required = true) @RequestParam String name) {
+        return productReactiveService.searchProductsByName(name);
+    }
+
+    @GetMapping(value = "/category/{category}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Get products by category", description = "Retrieve all products in a specific category")
+    public Flux<Product> getProductsByCategory(
+            @Parameter(description = "Product category", required = true) @PathVariable String category) {
+        return productReactiveService.getProductsByCategory(category);
+    }
+
+    @GetMapping(value = "/price-range", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Get products by price range", description = "Retrieve products within a specific price range")
+    public Flux<Product> getProductsByPriceRange(
+            @Parameter(description = "Minimum price", required = true) @RequestParam Double minPrice,
+            @Parameter(description = "Maximum price", required = true) @RequestParam Double maxPrice) {
+        return productReactiveService.getProductsByPriceRange(minPrice, maxPrice);
+    }
+
+    @GetMapping(value = "/category/{category}/max-price/{maxPrice}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Get products by category and max price",
+            description = "Retrieve products in a category under a maximum price")
+    public Flux<Product> getProductsByCategoryAndMaxPrice(
+            @Parameter(description = "Product category", required = true) @PathVariable String category,
+            @Parameter(description = "Maximum price", required = true) @PathVariable Double maxPrice) {
+        return productReactiveService.getProductsByCategoryAndMaxPrice(category, maxPrice);
+    }
+}
@@ -0,0 +1,19 @@
+package org.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestResponse {
+    private long total;
+    private long indexed;
+    private long failed;
+    private long tookMillis;
+    private List<BulkItemResult> items = new ArrayList<>();
+}
@@ -0,0 +1,25 @@
+package org.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    private long line;
+    private String id;
+    private String status;
+    private String error;
+
+    public static BulkItemResult indexed(long line, String id) {
+        return new BulkItemResult(line, id, "indexed", null);
+    }
+
+    public static BulkItemResult failed(long line, String id, String error) {
+        return new BulkItemResult(line, id, "failed", error);
+    }
+}
@@ -0,0 +1,24 @@
+package org.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CacheStatsResponse {
+    private String name;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private long entries;
+    private double averageLoadMillis;
+    private Long estimatedBytes;
+    private Long rejectedOversized;
+    // Served from the stale copy because Elasticsearch was unavailable
+    private Long staleServed;
+}
@@ -0,0 +1,30 @@
+package org.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportStatus {
+    private String id;
+    private String state;
+    private String format;
+    private String directory;
+    private int slices;
+    private long exported;
+    private long total;
+    private long bytes;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+
+    public static ExportStatus idle() {
+        return new ExportStatus(null, "idle", null, null, 0, 0, 0, 0, null, null, null);
+    }
+}
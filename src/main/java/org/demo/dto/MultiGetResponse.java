@@ -0,0 +1,17 @@
+package org.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.demo.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResponse {
+    private List<Product> products = new ArrayList<>();
+    private List<String> missing = new ArrayList<>();
+}
@@ -0,0 +1,54 @@
+package org.demo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Fields to change on a product; omitted or null fields are left untouched")
+public class ProductPatch {
+
+    @Pattern(regexp = ".*\\S.*", message = "Product name cannot be blank")
+    private String name;
+
+    private String description;
+
+    @Positive(message = "Price must be positive")
+    private Double price;
+
+    private String category;
+
+    @Min(value = 0, message = "Stock cannot be negative")
+    private Integer stock;
+
+    private String brand;
+
+    /**
+     * The non-null fields, keyed by their document field names.
+     */
+    public Map<String, Object> changes() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfPresent(changes, "name", name);
+        putIfPresent(changes, "description", description);
+        putIfPresent(changes, "price", price);
+        putIfPresent(changes, "category", category);
+        putIfPresent(changes, "stock", stock);
+        putIfPresent(changes, "brand", brand);
+        return changes;
+    }
+
+    private static void putIfPresent(Map<String, Object> changes, String field, Object value) {
+        if (value != null) {
+            changes.put(field, value);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.demo.model.Product;
+import org.demo.repository.FacetBucket;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    private List<Product> products = new ArrayList<>();
+    private long total;
+    private boolean totalExact;
+    private int page;
+    private int size;
+    private Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+}
@@ -0,0 +1,26 @@
+package org.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReindexStatus {
+    private String state;
+    private String sourceIndex;
+    private String targetIndex;
+    private long copied;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+
+    public static ReindexStatus idle() {
+        return new ReindexStatus("idle", null, null, 0, null, null, null);
+    }
+}
@@ -0,0 +1,19 @@
+package org.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.demo.model.ProductReview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewPageResponse {
+    private List<ProductReview> reviews = new ArrayList<>();
+    private long total;
+    private int page;
+    private int size;
+}
@@ -0,0 +1,10 @@
+package org.demo.exception;
+
+/**
+ * Thrown instead of calling Elasticsearch while the client's circuit breaker is open.
+ */
+public class ElasticsearchUnavailableException extends RuntimeException {
+    public ElasticsearchUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package org.demo.exception;
+
+/**
+ * Thrown when the product an operation targets does not exist.
+ */
+public class ProductNotFoundException extends RuntimeException {
+    public ProductNotFoundException(String id) {
+        super("Product not found with id: " + id);
+    }
+}
@@ -0,0 +1,48 @@
+package org.demo.export;
+
+import java.util.Locale;
+
+/**
+ * File formats of a product export. Both are gzip-compressed and line oriented, so they can be
+ * split, streamed and loaded by the usual analytics tools without reading a file whole.
+ */
+public enum ExportFormat {
+
+    /**
+     * One complete {@code _source} document per line, reviews and supplier included.
+     */
+    NDJSON("ndjson.gz", null),
+
+    /**
+     * The flat, scalar product attributes as RFC 4180 columns with a header row; reviews are left out.
+     */
+    CSV("csv.gz", new String[]{
+            "id", "name", "brand", "category", "price", "stock", "averageRating", "totalReviews",
+            "createdAt", "updatedAt", "supplier.id", "supplier.name", "supplier.country"});
+
+    private final String fileSuffix;
+    private final String[] columns;
+
+    ExportFormat(String fileSuffix, String[] columns) {
+        this.fileSuffix = fileSuffix;
+        this.columns = columns;
+    }
+
+    public String fileSuffix() {
+        return fileSuffix;
+    }
+
+    /**
+     * The exported fields, also used as the {@code _source} includes; {@code null} for the whole document.
+     */
+    public String[] columns() {
+        return columns == null ? null : columns.clone();
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown format name
+     */
+    public static ExportFormat of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
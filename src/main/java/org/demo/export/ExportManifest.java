@@ -0,0 +1,23 @@
+package org.demo.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Written once when an export starts, next to its part files; everything a resume needs
+ * besides the per-slice checkpoints.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportManifest {
+    private String id;
+    private ExportFormat format;
+    private int slices;
+    private String pointInTimeId;
+    private long total;
+    private Instant startedAt;
+}
@@ -0,0 +1,148 @@
+package org.demo.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends documents to one part file of an export as a sequence of gzip members. Readers
+ * decompress concatenated members as a single stream, so each {@link #checkpoint()} can end the
+ * current member and make it durable without rewriting anything; a resumed export truncates
+ * the file back to its last checkpoint and carries on with a new member.
+ * <p>
+ * Documents go through Jackson's or a character buffer into the deflater and from its 64KB
+ * buffer straight into the file channel, so memory use does not depend on the export size.
+ */
+public final class ExportPartWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final OutputStream file;
+    private final ExportFormat format;
+    private final ObjectWriter json;
+    private final String[] columns;
+    private final int compressionLevel;
+    private GZIPOutputStream member;
+    private JsonGenerator generator;
+    private Writer text;
+
+    /**
+     * @param offset           length of the file at the last checkpoint; whatever follows is discarded
+     * @param compressionLevel deflate level, from 1 (fastest) to 9 (smallest)
+     */
+    public ExportPartWriter(Path path, long offset, ExportFormat format, ObjectMapper mapper,
+                            int compressionLevel) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            // Anything past the checkpoint is an unfinished member from an interrupted run
+            channel.truncate(offset);
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.file = Channels.newOutputStream(channel);
+        this.format = format;
+        this.json = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.columns = format.columns();
+        this.compressionLevel = compressionLevel;
+        if (offset == 0 && columns != null) {
+            openMember();
+            writeCsvRow(columns);
+        }
+    }
+
+    public void write(List<ObjectNode> documents) throws IOException {
+        if (member == null) {
+            openMember();
+        }
+        for (ObjectNode document : documents) {
+            if (format == ExportFormat.NDJSON) {
+                json.writeValue(generator, document);
+                generator.writeRaw('\n');
+            } else {
+                String[] values = new String[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    JsonNode value = document.at("/" + columns[i].replace('.', '/'));
+                    values[i] = value.isValueNode() && !value.isNull() ? value.asText() : "";
+                }
+                writeCsvRow(values);
+            }
+        }
+    }
+
+    /**
+     * Ends the current gzip member and forces it to disk.
+     *
+     * @return the file length, which is the offset to resume from
+     */
+    public long checkpoint() throws IOException {
+        if (member != null) {
+            if (generator != null) {
+                generator.flush();
+            } else {
+                text.flush();
+            }
+            member.finish();
+            member = null;
+            generator = null;
+            text = null;
+        }
+        channel.force(false);
+        return channel.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void openMember() throws IOException {
+        member = new GZIPOutputStream(file, BUFFER_SIZE) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        };
+        if (format == ExportFormat.NDJSON) {
+            generator = json.getFactory().createGenerator(member)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        } else {
+            text = new BufferedWriter(new OutputStreamWriter(member, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+    }
+
+    private void writeCsvRow(String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                text.write(',');
+            }
+            String value = values[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                text.write('"');
+                text.write(value.replace("\"", "\"\""));
+                text.write('"');
+            } else {
+                text.write(value);
+            }
+        }
+        text.write("\r\n");
+    }
+}
@@ -0,0 +1,27 @@
+package org.demo.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Progress of one slice as of its last durable write: the part file is valid up to
+ * {@code offset} bytes, which hold {@code exported} documents, and reading continues after
+ * {@code searchAfter}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceCheckpoint {
+    private int slice;
+    private List<Object> searchAfter;
+    private long exported;
+    private long offset;
+    private boolean done;
+
+    public static SliceCheckpoint start(int slice) {
+        return new SliceCheckpoint(slice, null, 0, 0, false);
+    }
+}
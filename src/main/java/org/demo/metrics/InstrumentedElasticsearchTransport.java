@@ -0,0 +1,132 @@
+package org.demo.metrics;
+
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.DeleteByQueryResponse;
+import co.elastic.clients.elasticsearch.core.UpdateByQueryResponse;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.TransportOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every request of the Elasticsearch Java client, and with it every repository call, since
+ * Spring Data's template sits on the same transport. Per endpoint ({@code search}, {@code bulk},
+ * {@code get}, ...) it records:
+ * <ul>
+ *   <li>{@code elasticsearch.client.requests}: wall time seen by the application, from
+ *   serializing the request to deserializing the response;</li>
+ *   <li>{@code elasticsearch.took}: time Elasticsearch reports spending on the request, for
+ *   responses that carry it;</li>
+ *   <li>{@code elasticsearch.client.overhead}: the difference, i.e. network, queueing on the
+ *   connection pool and JSON mapping on our side.</li>
+ * </ul>
+ * A high took points at the query or the cluster; a high overhead with a low took points at the
+ * client, the payload size or the network.
+ */
+public class InstrumentedElasticsearchTransport implements ElasticsearchTransport {
+
+    private final ElasticsearchTransport delegate;
+    private final MeterRegistry registry;
+    private final SlowQueryLog slowQueryLog;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public InstrumentedElasticsearchTransport(ElasticsearchTransport delegate, MeterRegistry registry,
+                                              SlowQueryLog slowQueryLog) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) throws IOException {
+        long start = System.nanoTime();
+        ResponseT response;
+        try {
+            response = delegate.performRequest(request, endpoint, options);
+        } catch (IOException | RuntimeException e) {
+            record(name(endpoint), request, null, System.nanoTime() - start, "error");
+            throw e;
+        }
+        record(name(endpoint), request, response, System.nanoTime() - start, "success");
+        return response;
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) {
+        long start = System.nanoTime();
+        return delegate.performRequestAsync(request, endpoint, options).whenComplete((response, error) ->
+                record(name(endpoint), request, response, System.nanoTime() - start, error == null ? "success" : "error"));
+    }
+
+    @Override
+    public JsonpMapper jsonpMapper() {
+        return delegate.jsonpMapper();
+    }
+
+    @Override
+    public TransportOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private void record(String endpoint, Object request, Object response, long clientNanos, String outcome) {
+        timer("elasticsearch.client.requests", endpoint, outcome).record(clientNanos, TimeUnit.NANOSECONDS);
+
+        Long tookMillis = took(response);
+        if (tookMillis != null) {
+            long tookNanos = TimeUnit.MILLISECONDS.toNanos(tookMillis);
+            timer("elasticsearch.took", endpoint, outcome).record(tookNanos, TimeUnit.NANOSECONDS);
+            timer("elasticsearch.client.overhead", endpoint, outcome)
+                    .record(Math.max(clientNanos - tookNanos, 0), TimeUnit.NANOSECONDS);
+        }
+        slowQueryLog.offer(endpoint, request, clientNanos, tookMillis);
+    }
+
+    private Timer timer(String name, String endpoint, String outcome) {
+        // Registering resolves the meter through the registry on every call; a local map is cheaper
+        return timers.computeIfAbsent(name + ':' + endpoint + ':' + outcome, key -> Timer.builder(name)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * The client's endpoint id without its {@code es/} namespace: {@code search}, {@code tasks.get}.
+     */
+    static String name(Endpoint<?, ?, ?> endpoint) {
+        String id = endpoint.id();
+        return id.startsWith("es/") ? id.substring(3) : id;
+    }
+
+    private static Long took(Object response) {
+        if (response instanceof ResponseBody<?> search) {
+            return search.took();
+        }
+        if (response instanceof BulkResponse bulk) {
+            return bulk.took();
+        }
+        if (response instanceof DeleteByQueryResponse deleteByQuery) {
+            return deleteByQuery.took();
+        }
+        if (response instanceof UpdateByQueryResponse updateByQuery) {
+            return updateByQuery.took();
+        }
+        return null;
+    }
+}
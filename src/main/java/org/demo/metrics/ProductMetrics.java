@@ -0,0 +1,36 @@
+package org.demo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.demo.model.Product;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shape of the products being served. {@code products.reviews.total} is the logical review count
+ * of each product read by id; {@code products.reviews.embedded} is how many of those reviews
+ * travel inside the document, which is what drives document size and read cost. The two diverge
+ * with {@code products.reviews.storage=separate}.
+ */
+@Component
+public class ProductMetrics {
+
+    private final DistributionSummary totalReviews;
+    private final DistributionSummary embeddedReviews;
+
+    public ProductMetrics(MeterRegistry registry) {
+        this.totalReviews = DistributionSummary.builder("products.reviews.total")
+                .description("Reviews per product read by id")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.embeddedReviews = DistributionSummary.builder("products.reviews.embedded")
+                .description("Reviews embedded in each product document read by id")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordRead(Product product) {
+        int embedded = product.getReviews() != null ? product.getReviews().size() : 0;
+        totalReviews.record(product.getTotalReviews() != null ? product.getTotalReviews() : embedded);
+        embeddedReviews.record(embedded);
+    }
+}
@@ -0,0 +1,61 @@
+package org.demo.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a sample of the Elasticsearch requests that took longer than a threshold, with the
+ * request body. Replaces DEBUG logging of the client, which renders every request whether slow
+ * or not; here a request is only rendered once it has been picked for the log.
+ */
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxLength;
+
+    public SlowQueryLog(Duration threshold, double sampleRate, int maxLength) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Slow query sample rate must be between 0 and 1");
+        }
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.maxLength = maxLength;
+    }
+
+    public boolean isSlow(long clientNanos) {
+        return clientNanos >= thresholdNanos;
+    }
+
+    /**
+     * @param tookMillis server-side time reported by Elasticsearch, or {@code null} when the
+     *                   response carries none
+     */
+    public void offer(String endpoint, Object request, long clientNanos, Long tookMillis) {
+        if (!isSlow(clientNanos) || !log.isWarnEnabled()
+                || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        log.warn("Slow Elasticsearch {} request: client {} ms, took {} ms: {}",
+                endpoint, clientNanos / 1_000_000, tookMillis != null ? tookMillis : "n/a", render(request));
+    }
+
+    private String render(Object request) {
+        String rendered;
+        try {
+            // Request classes render as "<Name>: <method> <path> <json body>"
+            rendered = String.valueOf(request);
+        } catch (RuntimeException e) {
+            return request.getClass().getSimpleName() + " (not renderable: " + e.getMessage() + ")";
+        }
+        if (rendered.length() > maxLength) {
+            return rendered.substring(0, maxLength) + "... (" + rendered.length() + " chars)";
+        }
+        return rendered;
+    }
+}
@@ -0,0 +1,50 @@
+package org.demo.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Stock and/or price change for one product pushed by the inventory feed")
+public class InventoryDelta {
+
+    private String productId;
+
+    @Schema(description = "New price; the latest one wins")
+    private Double price;
+
+    @Schema(description = "Relative stock change; deltas for the same product are summed")
+    private Long stockDelta;
+
+    @Schema(description = "Source timestamp in epoch millis used to order price changes, also against prices applied by earlier flushes; arrival order when absent")
+    private Long timestamp;
+
+    /**
+     * Combines this delta with a later one: the newer price wins, stock deltas add up.
+     *
+     * @throws IllegalArgumentException if the summed stock delta does not fit in a long
+     */
+    public InventoryDelta merge(InventoryDelta newer) {
+        boolean takeNewerPrice = newer.price != null
+                && (price == null || timestamp == null || newer.timestamp == null || newer.timestamp >= timestamp);
+        Double mergedPrice = takeNewerPrice ? newer.price : price;
+        Long mergedTimestamp = takeNewerPrice ? newer.timestamp : timestamp;
+
+        Long mergedStock;
+        if (stockDelta == null) {
+            mergedStock = newer.stockDelta;
+        } else if (newer.stockDelta == null) {
+            mergedStock = stockDelta;
+        } else {
+            try {
+                mergedStock = Math.addExact(stockDelta, newer.stockDelta);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Stock delta overflow for product " + productId);
+            }
+        }
+        return new InventoryDelta(productId, mergedPrice, mergedStock, mergedTimestamp);
+    }
+}
@@ -8,8 +8,12 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Dynamic;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.annotations.Setting;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -20,7 +24,9 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-@Document(indexName = "products")
+// The index is created by ProductIndexManager from a managed template; "products" is an alias
+@Document(indexName = "products", createIndex = false, dynamic = Dynamic.FALSE)
+@Setting(settingPath = "/elasticsearch/product-settings.json")
 @Schema(description = "Product entity representing an item in the store")
 @Data
 @NoArgsConstructor
@@ -30,7 +36,14 @@ public class Product {
     @Id
     private String id;
 
-    @Field(type = FieldType.Text, analyzer = "standard")
+    // name.keyword holds the trimmed, lower-cased name for exact uniqueness lookups;
+    // name.suggest indexes word prefixes for autocomplete
+    @MultiField(
+            mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+            otherFields = {
+                    @InnerField(suffix = "keyword", type = FieldType.Keyword, normalizer = "name_normalizer"),
+                    @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type)
+            })
     @NotBlank(message = "Product name is required")
     private String name;
 
@@ -50,7 +63,14 @@ public class Product {
     @Min(value = 0, message = "Stock cannot be negative")
     private Integer stock;
 
-    @Field(type = FieldType.Keyword)
+    // brand.text makes the brand searchable by full-text queries and brand.suggest by autocomplete;
+    // brand itself stays exact for filters and facets
+    @MultiField(
+            mainField = @Field(type = FieldType.Keyword),
+            otherFields = {
+                    @InnerField(suffix = "text", type = FieldType.Text, analyzer = "standard"),
+                    @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type)
+            })
     private String brand;
 
     @Field(type = FieldType.Date, format = DateFormat.date_time)
@@ -73,18 +93,28 @@ public class Product {
     @Field(type = FieldType.Integer)
     private Integer totalReviews;
 
+    // Running total of review ratings, so averageRating can be maintained without re-reading reviews
+    @Field(type = FieldType.Long)
+    private Long ratingSum;
+
     // Helper methods for relations
     public void addReview(ProductReview review) {
         this.reviews.add(review);
-        updateAverageRating();
-    }
-
-    private void updateAverageRating() {
-        if (reviews != null && !reviews.isEmpty()) {
-            double sum = reviews.stream().mapToDouble(ProductReview::getRating).sum();
-            this.averageRating = sum / reviews.size();
-            this.totalReviews = reviews.size();
+        int count = totalReviews != null ? totalReviews : 0;
+        // Documents written before ratingSum existed get it reconstructed from the stored average
+        long sum;
+        if (ratingSum != null) {
+            sum = ratingSum;
+        } else if (averageRating != null) {
+            sum = Math.round(averageRating * count);
+        } else {
+            sum = 0L;
         }
+        sum += review.getRating();
+        count += 1;
+        this.ratingSum = sum;
+        this.totalReviews = count;
+        this.averageRating = (double) sum / count;
     }
 
 }
\ No newline at end of file
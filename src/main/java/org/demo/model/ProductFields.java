@@ -0,0 +1,74 @@
+package org.demo.model;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldset requested by a client, either as a named projection or as an explicit
+ * {@code fields=} list. Drives both the Elasticsearch {@code _source} includes and the JSON
+ * property filter, so unwanted fields are neither fetched nor serialized.
+ */
+public final class ProductFields {
+
+    public static final String FILTER_ID = "productFields";
+
+    public static final ProductFields ALL = new ProductFields(null);
+
+    private static final Map<String, Set<String>> PROJECTIONS = Map.of(
+            "summary", Set.of("id", "name", "price", "category", "averageRating"),
+            "card", Set.of("id", "name", "price", "category", "brand", "stock", "averageRating", "totalReviews")
+    );
+
+    private static final Set<String> KNOWN_FIELDS = Arrays.stream(Product.class.getDeclaredFields())
+            .map(Field::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final Set<String> names;
+
+    private ProductFields(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * @param projection a named projection ({@code full}, {@code summary}, {@code card}) or {@code null}
+     * @param fields     comma-separated field names; takes precedence over the projection
+     */
+    public static ProductFields of(String projection, String fields) {
+        if (fields != null && !fields.isBlank()) {
+            Set<String> names = new LinkedHashSet<>();
+            names.add("id");
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (!KNOWN_FIELDS.contains(name)) {
+                    throw new IllegalArgumentException("Unknown product field: " + name);
+                }
+                names.add(name);
+            }
+            return new ProductFields(names);
+        }
+        if (projection == null || projection.isBlank() || projection.equals("full")) {
+            return ALL;
+        }
+        Set<String> names = PROJECTIONS.get(projection);
+        if (names == null) {
+            throw new IllegalArgumentException("Unknown projection: " + projection);
+        }
+        return new ProductFields(names);
+    }
+
+    public boolean isAll() {
+        return names == null;
+    }
+
+    public Set<String> names() {
+        return names;
+    }
+
+    public String[] includes() {
+        return names.toArray(new String[0]);
+    }
+}
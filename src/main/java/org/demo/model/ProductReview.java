@@ -5,6 +5,9 @@ import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
 
 import java.time.LocalDateTime;
 
@@ -12,16 +15,29 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public  class ProductReview {
+    @Field(type = FieldType.Keyword)
     private String id;
+
+    @Field(type = FieldType.Keyword)
     private String userId;
+
+    @Field(type = FieldType.Keyword)
     private String userName;
 
+    @Field(type = FieldType.Integer)
     @Min(value = 1, message = "Rating must be at least 1")
     @Max(value = 5, message = "Rating must be at most 5")
     private Integer rating;
 
+    @Field(type = FieldType.Text)
     private String title;
+
+    @Field(type = FieldType.Text)
     private String comment;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
     private LocalDateTime createdAt;
+
+    @Field(type = FieldType.Boolean)
     private Boolean isVerifiedPurchase = false;
 }
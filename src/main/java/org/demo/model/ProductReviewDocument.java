@@ -0,0 +1,41 @@
+package org.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Routing;
+
+/**
+ * A review stored on its own, used when {@code products.reviews.storage=separate}. Routed by
+ * product id, so all reviews of a product sit on one shard and a product's review page is a
+ * single-shard query. Review ids are only unique within a product, so the document id is
+ * prefixed with the product id.
+ */
+@Document(indexName = "product-reviews", createIndex = false)
+@Routing("productId")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductReviewDocument {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String productId;
+
+    @Field(type = FieldType.Object)
+    private ProductReview review;
+
+    public static ProductReviewDocument of(String productId, ProductReview review) {
+        return new ProductReviewDocument(documentId(productId, review.getId()), productId, review);
+    }
+
+    public static String documentId(String productId, String reviewId) {
+        return productId + ":" + reviewId;
+    }
+}
@@ -3,16 +3,31 @@ package org.demo.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Supplier {
+    @Field(type = FieldType.Keyword)
     private String id;
+
+    @Field(type = FieldType.Text)
     private String name;
+
+    @Field(type = FieldType.Keyword)
     private String contactEmail;
+
+    @Field(type = FieldType.Keyword)
     private String contactPhone;
+
+    @Field(type = FieldType.Keyword)
     private String country;
+
+    @Field(type = FieldType.Double)
     private Double rating;
+
+    @Field(type = FieldType.Boolean)
     private Boolean isActive = true;
-}
\ No newline at end of file
+}
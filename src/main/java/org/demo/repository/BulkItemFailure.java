@@ -0,0 +1,25 @@
+package org.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.demo.client.ClusterFailures;
+
+/**
+ * An item of a _bulk request that Elasticsearch did not apply, with the item's HTTP status.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemFailure {
+    private int status;
+    private String reason;
+
+    /**
+     * Whether the cluster could not process the item, as on a 429 rejection or an unavailable
+     * shard, rather than rejecting it; such an item may succeed when sent again.
+     */
+    public boolean isRetryable() {
+        return ClusterFailures.isClusterStatus(status);
+    }
+}
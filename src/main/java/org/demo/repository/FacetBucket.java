@@ -0,0 +1,25 @@
+package org.demo.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One facet value and the number of matching products. {@code from}/{@code to} are set for
+ * range facets only.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FacetBucket {
+    private String key;
+    private Double from;
+    private Double to;
+    private long count;
+
+    public static FacetBucket term(String key, long count) {
+        return new FacetBucket(key, null, null, count);
+    }
+}
@@ -0,0 +1,23 @@
+package org.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.demo.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a point-in-time cursor over the products index.
+ * {@code searchAfter} holds the sort values of the last hit and is fed into the next request;
+ * {@code pointInTimeId} is the (possibly refreshed) PIT id returned by Elasticsearch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCursorPage {
+    private List<Product> products = new ArrayList<>();
+    private List<Object> searchAfter;
+    private String pointInTimeId;
+}
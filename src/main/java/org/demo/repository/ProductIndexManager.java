@@ -0,0 +1,408 @@
+package org.demo.repository;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.SlicesCalculation;
+import co.elastic.clients.elasticsearch._types.VersionType;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import jakarta.annotation.PostConstruct;
+import org.demo.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the physical product indices. The application only ever addresses the {@code products}
+ * alias; the data lives in versioned indices ({@code products-v1}, {@code products-v2}, ...)
+ * whose settings and mappings come from a composable index template kept in sync with
+ * {@link Product} on startup. Mapping changes are rolled out by building the next version and
+ * swapping the alias, see {@code ProductReindexService}.
+ */
+@Component
+public class ProductIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIndexManager.class);
+
+    // Reviews written before ProductReview.createdAt had a declared format hold epoch millis
+    private static final String REINDEX_SCRIPT = String.join("\n",
+            "if (ctx._source.reviews != null) {",
+            "  for (def review : ctx._source.reviews) {",
+            "    if (review.createdAt instanceof Number) {",
+            "      review.createdAt = Instant.ofEpochMilli(((Number) review.createdAt).longValue())",
+            "          .atZone(ZoneOffset.UTC).toLocalDateTime()",
+            "          .format(DateTimeFormatter.ofPattern(\"yyyy-MM-dd'T'HH:mm:ss.SSS\"));",
+            "    }",
+            "  }",
+            "}");
+
+    private static final long TASK_POLL_INTERVAL_MILLIS = 1000;
+
+    private static final int ID_PAGE_SIZE = 1000;
+
+    private final ElasticsearchOperations operations;
+    private final ElasticsearchClient client;
+    private final String alias;
+    private final Pattern versionPattern;
+    private final int shards;
+    private final int replicas;
+    private final String refreshInterval;
+    private final long nestedObjectsLimit;
+
+    public ProductIndexManager(ElasticsearchOperations operations, ElasticsearchClient client,
+                               @Value("${products.index.shards:1}") int shards,
+                               @Value("${products.index.replicas:1}") int replicas,
+                               @Value("${products.index.refresh-interval:1s}") String refreshInterval,
+                               @Value("${products.index.nested-objects-limit:10000}") long nestedObjectsLimit) {
+        this.operations = operations;
+        this.client = client;
+        this.alias = operations.getIndexCoordinatesFor(Product.class).getIndexName();
+        this.versionPattern = Pattern.compile(Pattern.quote(alias) + "-v(\\d+)");
+        this.shards = shards;
+        this.replicas = replicas;
+        this.refreshInterval = refreshInterval;
+        this.nestedObjectsLimit = nestedObjectsLimit;
+    }
+
+    /**
+     * Updates the template and, on an empty cluster, creates the first index behind the alias.
+     * A concrete index named like the alias, left over from before aliases were used, is kept
+     * and served as is until the reindex job migrates it.
+     */
+    @PostConstruct
+    public void initialize() {
+        putTemplate();
+        if (currentIndex().isPresent()) {
+            return;
+        }
+        String first = alias + "-v1";
+        createIndex(first, false);
+        swapAlias(null, first);
+        log.info("Created index '{}' behind alias '{}'", first, alias);
+    }
+
+    public String alias() {
+        return alias;
+    }
+
+    /**
+     * The index currently serving the alias: the index behind it, or the legacy concrete index.
+     */
+    public Optional<String> currentIndex() {
+        try {
+            if (client.indices().existsAlias(a -> a.name(alias)).value()) {
+                Set<String> indices = client.indices().getAlias(a -> a.name(alias)).result().keySet();
+                return indices.stream().findFirst();
+            }
+            if (client.indices().exists(e -> e.index(alias)).value()) {
+                return Optional.of(alias);
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean isLegacyIndex() {
+        return currentIndex().map(alias::equals).orElse(false);
+    }
+
+    /**
+     * The next unused {@code <alias>-v<n>} name.
+     */
+    public String nextIndexName() {
+        try {
+            Set<String> existing = client.indices().get(g -> g
+                    .index(alias + "-v*")
+                    .allowNoIndices(true)
+                    .ignoreUnavailable(true)).result().keySet();
+            int latest = 0;
+            for (String index : existing) {
+                Matcher matcher = versionPattern.matcher(index);
+                if (matcher.matches()) {
+                    latest = Math.max(latest, Integer.parseInt(matcher.group(1)));
+                }
+            }
+            return alias + "-v" + (latest + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates an index from the template. For a bulk load, refresh and replicas are switched off
+     * until {@link #finishBulkLoad(String)}: segments are not published on every refresh and
+     * documents are written once instead of once per copy.
+     *
+     * @throws IllegalStateException if the index already exists; creating the target is what
+     *                               claims a reindex, so another node got there first
+     */
+    public void createIndex(String index, boolean bulkLoad) {
+        try {
+            client.indices().create(c -> {
+                c.index(index);
+                if (bulkLoad) {
+                    c.settings(s -> s.refreshInterval(t -> t.time("-1")).numberOfReplicas("0"));
+                }
+                return c;
+            });
+        } catch (ElasticsearchException e) {
+            if (e.error() != null && "resource_already_exists_exception".equals(e.error().type())) {
+                throw new IllegalStateException("Index '" + index + "' already exists; another reindex is running", e);
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finishBulkLoad(String index) {
+        try {
+            client.indices().putSettings(p -> p
+                    .index(index)
+                    .settings(s -> s.refreshInterval(t -> t.time(refreshInterval)).numberOfReplicas(String.valueOf(replicas))));
+            client.indices().refresh(r -> r.index(index));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes everything written to the index so far visible to searches, and so to a copy.
+     */
+    public void refresh(String index) {
+        try {
+            client.indices().refresh(r -> r.index(index));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rejects writes to the index during the final catch-up of a copy, so that nothing written
+     * is lost when the alias moves. Reads are unaffected.
+     */
+    public void setWriteBlock(String index, boolean blocked) {
+        try {
+            client.indices().putSettings(p -> p
+                    .index(index)
+                    .settings(s -> s.blocks(b -> b.write(blocked))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies every document server side with sliced {@code _reindex}, polling the task so that
+     * no single client request has to outlive the copy. A copy that fails or is interrupted is
+     * cancelled, so no task keeps writing into the target behind the caller's back.
+     * <p>
+     * Copies keep the source's document versions and only overwrite older ones, so copying
+     * again after writes to the source rewrites just the documents that changed.
+     *
+     * @param progress receives the number of documents written so far after each poll
+     * @return the number of documents written
+     */
+    public long copy(String source, String target, LongConsumer progress) {
+        String taskId;
+        try {
+            taskId = client.reindex(r -> r
+                    .source(s -> s.index(source))
+                    .dest(d -> d.index(target).versionType(VersionType.External))
+                    .conflicts(Conflicts.Proceed)
+                    .script(s -> s.inline(i -> i.source(REINDEX_SCRIPT).lang("painless")))
+                    .slices(s -> s.computed(SlicesCalculation.Auto))
+                    .waitForCompletion(false)).task();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        boolean completed = false;
+        try {
+            while (true) {
+                // Without wait_for_completion the call answers at once, running or not
+                GetTasksResponse task = client.tasks().get(t -> t.taskId(taskId).waitForCompletion(false));
+                if (task.completed()) {
+                    completed = true;
+                    if (task.error() != null) {
+                        throw new IllegalStateException("Reindex into " + target + " failed: " + task.error().reason());
+                    }
+                    List<String> failures = task.response().failures();
+                    if (failures != null && !failures.isEmpty()) {
+                        throw new IllegalStateException("Reindex into " + target + " failed: " + failures.get(0));
+                    }
+                    long written = task.response().created() + task.response().updated();
+                    progress.accept(written);
+                    return written;
+                }
+                if (task.task().status() != null) {
+                    progress.accept(task.task().status().created() + task.task().status().updated());
+                }
+                Thread.sleep(TASK_POLL_INTERVAL_MILLIS);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reindex into " + target + " was interrupted", e);
+        } finally {
+            if (!completed) {
+                cancel(taskId);
+            }
+        }
+    }
+
+    /**
+     * Deletes the documents of the target that the source no longer has, such as products
+     * deleted while the target was being filled. Pages through the target's ids and looks each
+     * page up in the source.
+     *
+     * @return the number of documents deleted
+     */
+    public long deleteMissing(String source, String target) {
+        long deleted = 0;
+        String scrollId = null;
+        try {
+            refresh(target);
+            ResponseBody<Void> page = client.search(s -> s
+                    .index(target)
+                    .scroll(t -> t.time("1m"))
+                    .size(ID_PAGE_SIZE)
+                    .source(src -> src.fetch(false))
+                    .sort(o -> o.doc(d -> d)), Void.class);
+            while (true) {
+                scrollId = page.scrollId();
+                List<String> ids = page.hits().hits().stream().map(Hit::id).toList();
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Set<String> present = client.search(s -> s
+                                .index(source)
+                                .query(q -> q.ids(i -> i.values(ids)))
+                                .size(ids.size())
+                                .source(src -> src.fetch(false)), Void.class)
+                        .hits().hits().stream().map(Hit::id).collect(Collectors.toSet());
+                List<String> missing = ids.stream().filter(id -> !present.contains(id)).toList();
+                if (!missing.isEmpty()) {
+                    BulkRequest.Builder bulk = new BulkRequest.Builder().index(target);
+                    missing.forEach(id -> bulk.operations(op -> op.delete(d -> d.id(id))));
+                    if (client.bulk(bulk.build()).errors()) {
+                        throw new IllegalStateException("Could not delete documents missing from " + source + " in " + target);
+                    }
+                    deleted += missing.size();
+                }
+                String current = scrollId;
+                page = client.scroll(r -> r.scrollId(current).scroll(t -> t.time("1m")), Void.class);
+            }
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (scrollId != null) {
+                clearScroll(scrollId);
+            }
+        }
+    }
+
+    /**
+     * Deletes an index that never made it behind the alias, such as the target of a failed
+     * reindex, so it does not linger with refresh and replicas switched off.
+     */
+    public void deleteIndex(String index) {
+        if (alias.equals(index) || currentIndex().filter(index::equals).isPresent()) {
+            throw new IllegalStateException("Refusing to delete '" + index + "', it serves the alias");
+        }
+        try {
+            client.indices().delete(d -> d.index(index).ignoreUnavailable(true));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long count(String index) {
+        try {
+            return client.count(c -> c.index(index)).count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Points the alias at {@code to} in a single atomic {@code _aliases} call. A legacy concrete
+     * index is deleted in the same call, since the alias cannot coexist with an index of its name;
+     * a versioned index is left in place, write-blocked, for rollback.
+     */
+    public void swapAlias(String from, String to) {
+        try {
+            client.indices().updateAliases(u -> {
+                if (alias.equals(from)) {
+                    u.actions(a -> a.removeIndex(r -> r.index(from)));
+                } else if (from != null) {
+                    u.actions(a -> a.remove(r -> r.index(from).alias(alias)));
+                }
+                return u.actions(a -> a.add(ad -> ad.index(to).alias(alias).isWriteIndex(true)));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void clearScroll(String scrollId) {
+        try {
+            client.clearScroll(c -> c.scrollId(scrollId));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not clear scroll over the reindex target", e);
+        }
+    }
+
+    private void cancel(String taskId) {
+        try {
+            client.tasks().cancel(c -> c.taskId(taskId));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not cancel reindex task {}", taskId, e);
+        }
+    }
+
+    private void putTemplate() {
+        IndexOperations indexOps = operations.indexOps(Product.class);
+        Settings settings = indexOps.createSettings().flatten();
+        settings.put("index.number_of_shards", String.valueOf(shards));
+        settings.put("index.number_of_replicas", String.valueOf(replicas));
+        settings.put("index.refresh_interval", refreshInterval);
+        // Every review is a hidden Lucene document; this caps reviews per product
+        settings.put("index.mapping.nested_objects.limit", String.valueOf(nestedObjectsLimit));
+
+        Document template = Document.create();
+        template.put("index_patterns", List.of(alias + "-v*"));
+        template.put("template", Map.of("settings", settings, "mappings", indexOps.createMapping()));
+        template.put("priority", 100);
+
+        try {
+            client.indices().putIndexTemplate(t -> t
+                    .withJson(new StringReader(template.toJson()))
+                    .name(alias + "-template"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
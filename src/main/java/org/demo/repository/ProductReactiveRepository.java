@@ -0,0 +1,18 @@
+package org.demo.repository;
+
+import org.demo.model.Product;
+import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link ProductRepository} for the read endpoints.
+ */
+@Repository
+public interface ProductReactiveRepository extends ReactiveElasticsearchRepository<Product, String> {
+    Flux<Product> findByCategory(String category);
+    Flux<Product> findByNameContaining(String name);
+    Flux<Product> findByPriceBetween(Double minPrice, Double maxPrice);
+    Flux<Product> findByCategoryAndPriceLessThan(String category, Double price);
+
+}
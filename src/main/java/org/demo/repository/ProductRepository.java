@@ -7,11 +7,10 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends ElasticsearchRepository<Product, String> {
+public interface ProductRepository extends ElasticsearchRepository<Product, String>, ProductRepositoryCustom {
     List<Product> findByCategory(String category);
     List<Product> findByNameContaining(String name);
     List<Product> findByPriceBetween(Double minPrice, Double maxPrice);
     List<Product> findByCategoryAndPriceLessThan(String category, Double price);
-    boolean existsByName(String name);
 
 }
@@ -0,0 +1,136 @@
+package org.demo.repository;
+
+import org.demo.model.InventoryDelta;
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Custom repository fragment for operations that derived queries cannot express.
+ */
+public interface ProductRepositoryCustom {
+
+    String openPointInTime(Duration keepAlive);
+
+    ProductCursorPage findPageAfter(String pointInTimeId, Duration keepAlive, List<Object> searchAfter, int pageSize);
+
+    void closePointInTime(String pointInTimeId);
+
+    /**
+     * Reads the next page of one slice of a point in time as raw {@code _source} documents,
+     * without mapping them to {@link Product}. The {@code slices} slices partition the point in
+     * time, so they can be read in parallel; each has its own {@code searchAfter}.
+     *
+     * @param includes {@code _source} fields to fetch, or {@code null} for the whole document
+     */
+    ProductSourcePage findSourcePageAfter(String pointInTimeId, Duration keepAlive, int slice, int slices,
+                                          List<Object> searchAfter, int pageSize, String[] includes);
+
+    /**
+     * Indexes all products in a single _bulk request.
+     *
+     * @return reasons keyed by product id for the items Elasticsearch rejected; empty when all succeeded
+     */
+    Map<String, String> bulkSave(List<Product> products);
+
+    /**
+     * Looks up several normalized names at once against {@code name.keyword}.
+     *
+     * @return stored names keyed by product id, at most one product per normalized name
+     */
+    Map<String, String> findNamesByNormalizedNames(Collection<String> normalizedNames);
+
+    /**
+     * Runs the criteria over the whole index, fetching only the given {@code _source} fields.
+     */
+    List<Product> findAllProjected(Criteria criteria, String[] includes);
+
+    /**
+     * Runs a full-text search with filters and returns one page of hits together with the
+     * category, brand, price and rating facets, in a single request. Facets count all products
+     * matching the text and filters, not only the returned page.
+     */
+    ProductSearchPage search(ProductSearchQuery query);
+
+    /**
+     * Matches the prefix against the words of name and brand, the last word as a prefix.
+     *
+     * @return at most {@code size} products with distinct names, only id, name and brand populated
+     */
+    List<Product> suggest(String prefix, int size);
+
+    /**
+     * Appends a review and folds its rating into ratingSum/totalReviews/averageRating with a
+     * scripted update, without reading or resending the existing reviews.
+     *
+     * @return the product with only id and category populated, or empty when it does not exist
+     */
+    Optional<Product> appendReview(String productId, ProductReview review, Instant updatedAt);
+
+    /**
+     * Reads only the version metadata and category of a product.
+     */
+    Optional<ProductVersion> findVersion(String productId);
+
+    /**
+     * Applies a partial document in one update request. Elasticsearch re-applies it on a version
+     * conflict up to {@code retryOnConflict} times, so the given fields win over concurrent writes.
+     *
+     * @return the new version with the category after the update, or empty when the product does not exist
+     * @throws org.springframework.dao.OptimisticLockingFailureException if conflicts outlast the retries
+     */
+    Optional<ProductVersion> patch(String productId, Map<String, Object> changes, int retryOnConflict);
+
+    /**
+     * Applies a partial document in one update request, only if the product is still at the
+     * given version. Fields not in {@code changes}, including those kept in _source only, stay
+     * as they are.
+     *
+     * @return the product after the update, or empty when it does not exist
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the product was written since that version
+     */
+    Optional<Product> update(ProductVersion expected, Map<String, Object> changes);
+
+    /**
+     * Applies coalesced stock/price deltas as scripted partial updates in one _bulk request.
+     * Stock stays between zero and
+     * {@link Integer#MAX_VALUE}. A price with a source timestamp older than that of the price
+     * already applied is skipped. Each product remembers the last batch ids it applied, so
+     * sending a batch again under the same id changes nothing.
+     *
+     * @return failures keyed by product id for the updates Elasticsearch did not apply
+     */
+    Map<String, BulkItemFailure> bulkApplyDeltas(String batchId, List<InventoryDelta> deltas);
+
+    /**
+     * Overwrites ratingSum/totalReviews/averageRating of each product with the given stats, as
+     * partial updates in one _bulk request.
+     *
+     * @return reasons keyed by product id for the updates Elasticsearch rejected
+     */
+    Map<String, String> bulkSetRatingStats(Map<String, ReviewRatingStats> stats);
+
+    /**
+     * Finds products that still hold embedded reviews, for moving them to the separate review
+     * index.
+     *
+     * @return at most {@code size} products with only id, category and reviews populated
+     */
+    List<Product> findWithEmbeddedReviews(int size);
+
+    /**
+     * Empties the embedded review list of each product in one _bulk request, leaving the rating
+     * aggregates as they are, and refreshes so the products no longer match
+     * {@link #findWithEmbeddedReviews(int)}.
+     *
+     * @return reasons keyed by product id for the updates Elasticsearch rejected
+     */
+    Map<String, String> bulkClearEmbeddedReviews(Collection<String> productIds);
+}
@@ -0,0 +1,599 @@
+package org.demo.repository;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.AggregationRange;
+import co.elastic.clients.elasticsearch._types.aggregations.RangeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.UpdateResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.FieldCollapse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.demo.client.ResilientElasticsearchTransport;
+import org.demo.model.InventoryDelta;
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchDateConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // Documents written before ratingSum existed get it reconstructed from the stored average
+    private static final String APPEND_REVIEW_SCRIPT = String.join("\n",
+            "if (ctx._source.reviews == null) { ctx._source.reviews = []; }",
+            "ctx._source.reviews.add(params.review);",
+            "long count = ctx._source.totalReviews == null ? 0 : ctx._source.totalReviews;",
+            "long sum;",
+            "if (ctx._source.ratingSum != null) { sum = ctx._source.ratingSum; }",
+            "else if (ctx._source.averageRating != null) { sum = Math.round(ctx._source.averageRating * count); }",
+            "else { sum = 0; }",
+            "sum += params.rating;",
+            "count += 1;",
+            "ctx._source.ratingSum = sum;",
+            "ctx._source.totalReviews = count;",
+            "ctx._source.averageRating = (double) sum / count;",
+            "ctx._source.updatedAt = params.updatedAt;");
+
+    // inventoryBatches is kept in _source only (the mapping is not dynamic) to recognize a batch
+    // sent again after a failure whose outcome was unknown; priceTimestamp, likewise, is the source
+    // timestamp of the applied price, so that a late older price does not overwrite it
+    private static final String APPLY_DELTA_SCRIPT = String.join("\n",
+            "List batches = ctx._source.inventoryBatches;",
+            "if (batches != null && batches.contains(params.batch)) {",
+            "  ctx.op = 'noop';",
+            "} else {",
+            "  if (params.containsKey('price')) {",
+            "    def applied = ctx._source.priceTimestamp;",
+            "    if (!params.containsKey('priceTimestamp') || applied == null || params.priceTimestamp >= applied) {",
+            "      ctx._source.price = params.price;",
+            "      if (params.containsKey('priceTimestamp')) { ctx._source.priceTimestamp = params.priceTimestamp; }",
+            "    }",
+            "  }",
+            "  if (params.containsKey('stockDelta')) {",
+            "    long stock = (ctx._source.stock == null ? 0 : ctx._source.stock) + params.stockDelta;",
+            "    ctx._source.stock = (int) Math.min(Integer.MAX_VALUE, Math.max(0, stock));",
+            "  }",
+            "  ctx._source.updatedAt = params.updatedAt;",
+            "  if (batches == null) { batches = new ArrayList(); ctx._source.inventoryBatches = batches; }",
+            "  batches.add(params.batch);",
+            "  while (batches.size() > params.maxBatches) { batches.remove(0); }",
+            "}");
+
+    private static final int REMEMBERED_INVENTORY_BATCHES = 16;
+
+    // Name matches weigh most, then brand; description only breaks ties
+    private static final List<String> SEARCH_FIELDS = List.of("name^3", "brand.text^2", "description");
+
+    // search_as_you_type subfields and their shingle variants, which score adjacent words higher
+    private static final List<String> SUGGEST_FIELDS = List.of(
+            "name.suggest^2", "name.suggest._2gram^2", "name.suggest._3gram^2",
+            "brand.suggest", "brand.suggest._2gram", "brand.suggest._3gram");
+
+    private static final List<String> FACETS = List.of("category", "brand", "price", "rating");
+
+    private static final int TERMS_FACET_SIZE = 20;
+
+    private static final List<AggregationRange> PRICE_RANGES = List.of(
+            AggregationRange.of(r -> r.key("*-25").to("25")),
+            AggregationRange.of(r -> r.key("25-50").from("25").to("50")),
+            AggregationRange.of(r -> r.key("50-100").from("50").to("100")),
+            AggregationRange.of(r -> r.key("100-250").from("100").to("250")),
+            AggregationRange.of(r -> r.key("250-500").from("250").to("500")),
+            AggregationRange.of(r -> r.key("500-1000").from("500").to("1000")),
+            AggregationRange.of(r -> r.key("1000-*").from("1000")));
+
+    // Overlapping "and up" buckets, matching how a minRating filter is applied
+    private static final List<AggregationRange> RATING_RANGES = List.of(
+            AggregationRange.of(r -> r.key("4+").from("4")),
+            AggregationRange.of(r -> r.key("3+").from("3")),
+            AggregationRange.of(r -> r.key("2+").from("2")),
+            AggregationRange.of(r -> r.key("1+").from("1")));
+
+    private static final ElasticsearchDateConverter DATE_TIME = ElasticsearchDateConverter.of(DateFormat.date_time);
+
+    private final ElasticsearchOperations operations;
+    private final ElasticsearchClient client;
+    // Export pages are large and long-running; see ResilientElasticsearchTransport#backgroundOptions
+    private final ElasticsearchClient exportClient;
+
+    public ProductRepositoryCustomImpl(ElasticsearchOperations operations, ElasticsearchClient client) {
+        this.operations = operations;
+        this.client = client;
+        this.exportClient = client._transport() instanceof ResilientElasticsearchTransport resilient
+                ? client.withTransportOptions(resilient.backgroundOptions())
+                : client;
+    }
+
+    @Override
+    public String openPointInTime(Duration keepAlive) {
+        return operations.openPointInTime(operations.getIndexCoordinatesFor(Product.class), keepAlive);
+    }
+
+    @Override
+    public ProductCursorPage findPageAfter(String pointInTimeId, Duration keepAlive, List<Object> searchAfter, int pageSize) {
+        // _shard_doc is the cheapest total order available inside a point in time
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSort(s -> s.field(f -> f.field("_shard_doc").order(SortOrder.Asc)))
+                .withPointInTime(new Query.PointInTime(pointInTimeId, keepAlive))
+                .withSearchAfter(searchAfter)
+                .withPageable(PageRequest.of(0, pageSize))
+                .withTrackTotalHits(false)
+                .build();
+
+        SearchHits<Product> hits = operations.search(query, Product.class);
+        List<Product> products = hits.getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .collect(Collectors.toList());
+        List<Object> lastSortValues = hits.hasSearchHits()
+                ? hits.getSearchHit(hits.getSearchHits().size() - 1).getSortValues()
+                : searchAfter;
+        String nextPointInTimeId = hits.getPointInTimeId() != null ? hits.getPointInTimeId() : pointInTimeId;
+
+        return new ProductCursorPage(products, lastSortValues, nextPointInTimeId);
+    }
+
+    @Override
+    public ProductSourcePage findSourcePageAfter(String pointInTimeId, Duration keepAlive, int slice, int slices,
+                                                 List<Object> searchAfter, int pageSize, String[] includes) {
+        try {
+            SearchResponse<ObjectNode> response = exportClient.search(s -> {
+                s.pit(p -> p.id(pointInTimeId).keepAlive(t -> t.time(keepAlive.toMillis() + "ms")))
+                        .query(q -> q.matchAll(m -> m))
+                        .sort(o -> o.field(f -> f.field("_shard_doc").order(SortOrder.Asc)))
+                        .size(pageSize)
+                        .trackTotalHits(t -> t.enabled(false))
+                        .source(src -> src.filter(f -> includes != null
+                                ? f.includes(List.of(includes))
+                                : f.excludes("_class", "inventoryBatches", "priceTimestamp")));
+                if (slices > 1) {
+                    // Without a field, slices split each shard by document, so no slice rescans the others
+                    s.slice(sl -> sl.id(String.valueOf(slice)).max(slices));
+                }
+                if (searchAfter != null) {
+                    s.searchAfter(searchAfter.stream().map(ProductRepositoryCustomImpl::fieldValue).collect(Collectors.toList()));
+                }
+                return s;
+            }, ObjectNode.class);
+
+            List<Hit<ObjectNode>> hits = response.hits().hits();
+            List<ObjectNode> sources = new ArrayList<>(hits.size());
+            for (Hit<ObjectNode> hit : hits) {
+                ObjectNode source = hit.source() != null ? hit.source() : JsonNodeFactory.instance.objectNode();
+                if (!source.has("id")) {
+                    source.put("id", hit.id());
+                }
+                sources.add(source);
+            }
+            List<Object> lastSortValues = hits.isEmpty()
+                    ? searchAfter
+                    : hits.get(hits.size() - 1).sort().stream().map(FieldValue::_get).collect(Collectors.toList());
+            String nextPointInTimeId = response.pitId() != null ? response.pitId() : pointInTimeId;
+            return new ProductSourcePage(sources, lastSortValues, nextPointInTimeId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FieldValue fieldValue(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return FieldValue.of(((Number) value).doubleValue());
+        }
+        if (value instanceof Number number) {
+            return FieldValue.of(number.longValue());
+        }
+        if (value instanceof Boolean bool) {
+            return FieldValue.of(bool);
+        }
+        return FieldValue.of(String.valueOf(value));
+    }
+
+    @Override
+    public void closePointInTime(String pointInTimeId) {
+        operations.closePointInTime(pointInTimeId);
+    }
+
+    @Override
+    public Map<String, String> bulkSave(List<Product> products) {
+        List<IndexQuery> queries = products.stream()
+                .map(product -> new IndexQueryBuilder()
+                        .withId(product.getId())
+                        .withObject(product)
+                        .build())
+                .collect(Collectors.toList());
+        try {
+            operations.bulkIndex(queries, BulkOptions.defaultOptions(), operations.getIndexCoordinatesFor(Product.class));
+            return Map.of();
+        } catch (BulkFailureException e) {
+            return e.getFailedDocuments();
+        }
+    }
+
+    @Override
+    public Map<String, String> findNamesByNormalizedNames(Collection<String> normalizedNames) {
+        if (normalizedNames.isEmpty()) {
+            return Map.of();
+        }
+        List<FieldValue> values = normalizedNames.stream().map(FieldValue::of).collect(Collectors.toList());
+        // Collapsing on the keyword returns one hit per distinct name, so the page size is exact
+        NativeQuery query = NativeQuery.builder()
+                .withFilter(q -> q.terms(t -> t.field("name.keyword").terms(v -> v.value(values))))
+                .withFieldCollapse(FieldCollapse.of(c -> c.field("name.keyword")))
+                .withSourceFilter(new FetchSourceFilter(new String[]{"name"}, null))
+                .withPageable(PageRequest.of(0, normalizedNames.size()))
+                .withTrackTotalHits(false)
+                .build();
+
+        Map<String, String> names = new HashMap<>();
+        for (SearchHit<Product> hit : operations.search(query, Product.class)) {
+            names.put(hit.getId(), hit.getContent().getName());
+        }
+        return names;
+    }
+
+    @Override
+    public List<Product> findAllProjected(Criteria criteria, String[] includes) {
+        CriteriaQuery query = new CriteriaQuery(criteria);
+        query.addSourceFilter(new FetchSourceFilter(includes, null));
+
+        // Scroll instead of count + sized search, which is what the derived finders do
+        List<Product> products = new ArrayList<>();
+        try (SearchHitsIterator<Product> hits = operations.searchForStream(query, Product.class)) {
+            hits.forEachRemaining(hit -> products.add(hit.getContent()));
+        }
+        return products;
+    }
+
+    @Override
+    public ProductSearchPage search(ProductSearchQuery search) {
+        // Filters run in filter context: not scored, and cached per segment by Elasticsearch
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> searchQuery(b, search)))
+                .withAggregation("category", Aggregation.of(a -> a.terms(t -> t.field("category").size(TERMS_FACET_SIZE))))
+                .withAggregation("brand", Aggregation.of(a -> a.terms(t -> t.field("brand").size(TERMS_FACET_SIZE))))
+                .withAggregation("price", Aggregation.of(a -> a.range(r -> r.field("price").ranges(PRICE_RANGES))))
+                .withAggregation("rating", Aggregation.of(a -> a.range(r -> r.field("averageRating").ranges(RATING_RANGES))))
+                .withPageable(PageRequest.of(search.getPage(), search.getSize()));
+        if (search.getIncludes() != null) {
+            builder.withSourceFilter(new FetchSourceFilter(search.getIncludes(), null));
+        }
+
+        SearchHits<Product> hits = operations.search(builder.build(), Product.class);
+        List<Product> products = hits.getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .collect(Collectors.toList());
+
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        if (hits.getAggregations() instanceof ElasticsearchAggregations aggregations) {
+            for (String facet : FACETS) {
+                ElasticsearchAggregation aggregation = aggregations.get(facet);
+                if (aggregation != null) {
+                    facets.put(facet, facetBuckets(aggregation.aggregation().getAggregate()));
+                }
+            }
+        }
+        return new ProductSearchPage(products, hits.getTotalHits(),
+                hits.getTotalHitsRelation() == TotalHitsRelation.EQUAL_TO, facets);
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int size) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.multiMatch(mm -> mm
+                        .query(prefix)
+                        .type(TextQueryType.BoolPrefix)
+                        .fields(SUGGEST_FIELDS)))
+                .withFieldCollapse(FieldCollapse.of(c -> c.field("name.keyword")))
+                .withSourceFilter(new FetchSourceFilter(new String[]{"name", "brand"}, null))
+                .withPageable(PageRequest.of(0, size))
+                .withTrackTotalHits(false)
+                .build();
+
+        return operations.search(query, Product.class).getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Optional<Product> appendReview(String productId, ProductReview review, Instant updatedAt) {
+        String index = productIndexName();
+        Map<String, JsonData> params = Map.of(
+                "review", JsonData.of(operations.getElasticsearchConverter().mapObject(review)),
+                "rating", JsonData.of(review.getRating()),
+                "updatedAt", JsonData.of(DATE_TIME.format(updatedAt)));
+        try {
+            UpdateResponse<Map> response = client.update(u -> u
+                            .index(index)
+                            .id(productId)
+                            .script(s -> s.inline(i -> i.lang("painless").source(APPEND_REVIEW_SCRIPT).params(params)))
+                            .retryOnConflict(3)
+                            .source(src -> src.filter(f -> f.includes("category"))),
+                    Map.class);
+            Product product = new Product();
+            product.setId(productId);
+            Map source = response.get() != null ? response.get().source() : null;
+            if (source != null && source.get("category") != null) {
+                product.setCategory(source.get("category").toString());
+            }
+            return Optional.of(product);
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Optional<ProductVersion> findVersion(String productId) {
+        try {
+            GetResponse<Map> response = client.get(g -> g
+                            .index(productIndexName())
+                            .id(productId)
+                            .sourceIncludes("category"),
+                    Map.class);
+            if (!response.found()) {
+                return Optional.empty();
+            }
+            Map source = response.source();
+            String category = source != null && source.get("category") != null ? source.get("category").toString() : null;
+            return Optional.of(new ProductVersion(productId, response.seqNo(), response.primaryTerm(), category));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Optional<ProductVersion> patch(String productId, Map<String, Object> changes, int retryOnConflict) {
+        Map<String, Object> document = new LinkedHashMap<>(changes);
+        document.put("updatedAt", DATE_TIME.format(Instant.now()));
+        try {
+            UpdateResponse<Map> response = client.update(u -> u
+                            .index(productIndexName())
+                            .id(productId)
+                            .doc(document)
+                            .retryOnConflict(retryOnConflict)
+                            .source(c -> c.filter(f -> f.includes("category"))),
+                    Map.class);
+            Map source = response.get() != null ? response.get().source() : null;
+            String category = source != null && source.get("category") != null ? source.get("category").toString() : null;
+            return Optional.of(new ProductVersion(productId, response.seqNo(), response.primaryTerm(), category));
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return Optional.empty();
+            }
+            if (e.status() == 409) {
+                throw new OptimisticLockingFailureException("Product " + productId + " kept being modified concurrently", e);
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Optional<Product> update(ProductVersion expected, Map<String, Object> changes) {
+        String productId = expected.getId();
+        Map<String, Object> document = new LinkedHashMap<>(changes);
+        document.put("updatedAt", DATE_TIME.format(Instant.now()));
+        try {
+            UpdateResponse<Map> response = client.update(u -> u
+                            .index(productIndexName())
+                            .id(productId)
+                            .doc(document)
+                            .ifSeqNo(expected.getSeqNo())
+                            .ifPrimaryTerm(expected.getPrimaryTerm())
+                            .source(c -> c.fetch(true)),
+                    Map.class);
+            Document source = Document.from(response.get().source());
+            source.setId(productId);
+            return Optional.of(operations.getElasticsearchConverter().read(Product.class, source));
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return Optional.empty();
+            }
+            if (e.status() == 409) {
+                throw new OptimisticLockingFailureException("Product " + productId + " was modified concurrently", e);
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BoolQuery.Builder searchQuery(BoolQuery.Builder bool, ProductSearchQuery search) {
+        if (StringUtils.hasText(search.getText())) {
+            bool.must(m -> m.multiMatch(mm -> mm.query(search.getText()).fields(SEARCH_FIELDS)));
+        }
+        if (search.getCategories() != null && !search.getCategories().isEmpty()) {
+            List<FieldValue> values = search.getCategories().stream().map(FieldValue::of).collect(Collectors.toList());
+            bool.filter(f -> f.terms(t -> t.field("category").terms(v -> v.value(values))));
+        }
+        if (search.getBrands() != null && !search.getBrands().isEmpty()) {
+            List<FieldValue> values = search.getBrands().stream().map(FieldValue::of).collect(Collectors.toList());
+            bool.filter(f -> f.terms(t -> t.field("brand").terms(v -> v.value(values))));
+        }
+        if (search.getMinPrice() != null || search.getMaxPrice() != null) {
+            bool.filter(f -> f.range(r -> bounds(r.field("price"), search.getMinPrice(), search.getMaxPrice())));
+        }
+        if (search.getMinRating() != null) {
+            bool.filter(f -> f.range(r -> bounds(r.field("averageRating"), search.getMinRating(), null)));
+        }
+        return bool;
+    }
+
+    private static RangeQuery.Builder bounds(RangeQuery.Builder range, Double gte, Double lte) {
+        if (gte != null) {
+            range.gte(JsonData.of(gte));
+        }
+        if (lte != null) {
+            range.lte(JsonData.of(lte));
+        }
+        return range;
+    }
+
+    private static List<FacetBucket> facetBuckets(Aggregate aggregate) {
+        List<FacetBucket> buckets = new ArrayList<>();
+        if (aggregate.isSterms()) {
+            for (StringTermsBucket bucket : aggregate.sterms().buckets().array()) {
+                buckets.add(FacetBucket.term(bucket.key().stringValue(), bucket.docCount()));
+            }
+        } else if (aggregate.isRange()) {
+            for (RangeBucket bucket : aggregate.range().buckets().array()) {
+                buckets.add(new FacetBucket(bucket.key(), bucket.from(), bucket.to(), bucket.docCount()));
+            }
+        }
+        return buckets;
+    }
+
+    private String productIndexName() {
+        return operations.getIndexCoordinatesFor(Product.class).getIndexName();
+    }
+
+    @Override
+    public Map<String, BulkItemFailure> bulkApplyDeltas(String batchId, List<InventoryDelta> deltas) {
+        JsonData updatedAt = JsonData.of(DATE_TIME.format(Instant.now()));
+        BulkRequest.Builder bulk = new BulkRequest.Builder().index(productIndexName());
+        for (InventoryDelta delta : deltas) {
+            Map<String, JsonData> params = new HashMap<>();
+            params.put("batch", JsonData.of(batchId));
+            params.put("maxBatches", JsonData.of(REMEMBERED_INVENTORY_BATCHES));
+            if (delta.getPrice() != null) {
+                params.put("price", JsonData.of(delta.getPrice()));
+                if (delta.getTimestamp() != null) {
+                    params.put("priceTimestamp", JsonData.of(delta.getTimestamp()));
+                }
+            }
+            if (delta.getStockDelta() != null) {
+                params.put("stockDelta", JsonData.of(delta.getStockDelta()));
+            }
+            params.put("updatedAt", updatedAt);
+            bulk.operations(op -> op.update(u -> u
+                    .id(delta.getProductId())
+                    .retryOnConflict(3)
+                    .action(a -> a.script(s -> s.inline(i -> i.lang("painless").source(APPLY_DELTA_SCRIPT).params(params))))));
+        }
+        // The native client, unlike BulkFailureException, reports the status of each failed item
+        try {
+            Map<String, BulkItemFailure> failures = new HashMap<>();
+            for (BulkResponseItem item : client.bulk(bulk.build()).items()) {
+                if (item.error() != null) {
+                    failures.put(item.id(), new BulkItemFailure(item.status(), item.error().reason()));
+                }
+            }
+            return failures;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, String> bulkSetRatingStats(Map<String, ReviewRatingStats> stats) {
+        List<UpdateQuery> queries = new ArrayList<>(stats.size());
+        stats.forEach((productId, productStats) -> {
+            Document document = Document.create();
+            document.put("ratingSum", productStats.getSum());
+            document.put("totalReviews", productStats.getCount());
+            document.put("averageRating", productStats.average());
+            queries.add(UpdateQuery.builder(productId)
+                    .withDocument(document)
+                    .withRetryOnConflict(3)
+                    .build());
+        });
+        try {
+            operations.bulkUpdate(queries, BulkOptions.defaultOptions(), operations.getIndexCoordinatesFor(Product.class));
+            return Map.of();
+        } catch (BulkFailureException e) {
+            return e.getFailedDocuments();
+        }
+    }
+
+    @Override
+    public List<Product> findWithEmbeddedReviews(int size) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.nested(n -> n.path("reviews").query(m -> m.matchAll(a -> a))))
+                .withSourceFilter(new FetchSourceFilter(new String[]{"id", "category", "reviews"}, null))
+                .withPageable(PageRequest.of(0, size))
+                .withTrackTotalHits(false)
+                .build();
+        return operations.search(query, Product.class).getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, String> bulkClearEmbeddedReviews(Collection<String> productIds) {
+        List<UpdateQuery> queries = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            Document document = Document.create();
+            document.put("reviews", List.of());
+            queries.add(UpdateQuery.builder(productId)
+                    .withDocument(document)
+                    .withRetryOnConflict(3)
+                    .build());
+        }
+        Map<String, String> failures;
+        try {
+            operations.bulkUpdate(queries, BulkOptions.defaultOptions(), operations.getIndexCoordinatesFor(Product.class));
+            failures = Map.of();
+        } catch (BulkFailureException e) {
+            failures = e.getFailedDocuments();
+        }
+        operations.indexOps(Product.class).refresh();
+        return failures;
+    }
+}
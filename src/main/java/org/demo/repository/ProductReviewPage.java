@@ -0,0 +1,20 @@
+package org.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.demo.model.ProductReview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a product's reviews, newest first, and the product's total review count.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductReviewPage {
+    private List<ProductReview> reviews = new ArrayList<>();
+    private long total;
+}
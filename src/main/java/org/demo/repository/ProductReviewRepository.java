@@ -0,0 +1,16 @@
+package org.demo.repository;
+
+import org.demo.model.ProductReviewDocument;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface ProductReviewRepository extends ElasticsearchRepository<ProductReviewDocument, String>,
+        ProductReviewRepositoryCustom {
+    void deleteByProductId(String productId);
+
+    void deleteByProductIdIn(Collection<String> productIds);
+
+}
@@ -0,0 +1,33 @@
+package org.demo.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Custom repository fragment for the separate review index.
+ */
+public interface ProductReviewRepositoryCustom {
+
+    /**
+     * Creates the review index with its mapping unless it already exists.
+     */
+    void createIndexIfMissing();
+
+    /**
+     * Makes every indexed review visible to searches and aggregations.
+     */
+    void refresh();
+
+    /**
+     * Reads one page of a product's reviews, newest first, from the product's shard only.
+     */
+    ProductReviewPage findPageByProductId(String productId, int page, int size);
+
+    /**
+     * Aggregates review count and rating sum for several products in one request. Reviews
+     * indexed since the last refresh of the review index are not counted yet.
+     *
+     * @return stats keyed by product id; products without reviews are absent
+     */
+    Map<String, ReviewRatingStats> ratingStats(Collection<String> productIds);
+}
@@ -0,0 +1,86 @@
+package org.demo.repository;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import org.demo.model.ProductReviewDocument;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ProductReviewRepositoryCustomImpl implements ProductReviewRepositoryCustom {
+
+    private final ElasticsearchOperations operations;
+
+    public ProductReviewRepositoryCustomImpl(ElasticsearchOperations operations) {
+        this.operations = operations;
+    }
+
+    @Override
+    public void createIndexIfMissing() {
+        IndexOperations indexOps = operations.indexOps(ProductReviewDocument.class);
+        if (!indexOps.exists()) {
+            indexOps.createWithMapping();
+        }
+    }
+
+    @Override
+    public void refresh() {
+        operations.indexOps(ProductReviewDocument.class).refresh();
+    }
+
+    @Override
+    public ProductReviewPage findPageByProductId(String productId, int page, int size) {
+        NativeQuery query = NativeQuery.builder()
+                .withFilter(q -> q.term(t -> t.field("productId").value(productId)))
+                .withSort(s -> s.field(f -> f.field("review.createdAt").order(SortOrder.Desc)))
+                .withRoute(productId)
+                .withPageable(PageRequest.of(page, size))
+                .withTrackTotalHits(true)
+                .build();
+
+        SearchHits<ProductReviewDocument> hits = operations.search(query, ProductReviewDocument.class);
+        return new ProductReviewPage(hits.getSearchHits().stream()
+                .map(hit -> hit.getContent().getReview())
+                .collect(Collectors.toList()), hits.getTotalHits());
+    }
+
+    @Override
+    public Map<String, ReviewRatingStats> ratingStats(Collection<String> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<FieldValue> values = productIds.stream().map(FieldValue::of).collect(Collectors.toList());
+        NativeQuery query = NativeQuery.builder()
+                .withFilter(q -> q.terms(t -> t.field("productId").terms(v -> v.value(values))))
+                .withAggregation("products", Aggregation.of(a -> a
+                        .terms(t -> t.field("productId").size(productIds.size()))
+                        .aggregations("ratingSum", s -> s.sum(sum -> sum.field("review.rating")))))
+                .withMaxResults(0)
+                .withTrackTotalHits(false)
+                .build();
+
+        SearchHits<ProductReviewDocument> hits = operations.search(query, ProductReviewDocument.class);
+        Map<String, ReviewRatingStats> stats = new HashMap<>();
+        if (hits.getAggregations() instanceof ElasticsearchAggregations aggregations) {
+            ElasticsearchAggregation products = aggregations.get("products");
+            for (StringTermsBucket bucket : products.aggregation().getAggregate().sterms().buckets().array()) {
+                long sum = Math.round(bucket.aggregations().get("ratingSum").sum().value());
+                stats.put(bucket.key().stringValue(), new ReviewRatingStats(bucket.docCount(), sum));
+            }
+        }
+        return stats;
+    }
+}
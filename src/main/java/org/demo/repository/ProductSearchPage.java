@@ -0,0 +1,25 @@
+package org.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.demo.model.Product;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of search hits with the facet counts over all matching products.
+ * {@code totalExact} is false when {@code total} is only a lower bound.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchPage {
+    private List<Product> products = new ArrayList<>();
+    private long total;
+    private boolean totalExact;
+    private Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+}
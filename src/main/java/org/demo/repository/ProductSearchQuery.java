@@ -0,0 +1,28 @@
+package org.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search with optional filters. {@code text} is matched against name, brand and
+ * description; an empty text matches every product. Empty filter lists and null bounds are
+ * ignored. {@code includes} restricts the fetched {@code _source} fields, null fetches all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchQuery {
+    private String text;
+    private List<String> categories = new ArrayList<>();
+    private List<String> brands = new ArrayList<>();
+    private Double minPrice;
+    private Double maxPrice;
+    private Double minRating;
+    private int page;
+    private int size;
+    private String[] includes;
+}
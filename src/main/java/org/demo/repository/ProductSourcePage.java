@@ -0,0 +1,22 @@
+package org.demo.repository;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of one slice of a point-in-time cursor, as raw {@code _source} documents.
+ * {@code searchAfter} and {@code pointInTimeId} work as in {@link ProductCursorPage}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSourcePage {
+    private List<ObjectNode> sources = new ArrayList<>();
+    private List<Object> searchAfter;
+    private String pointInTimeId;
+}
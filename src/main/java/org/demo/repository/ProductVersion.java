@@ -0,0 +1,18 @@
+package org.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sequence number and primary term of a product document, plus the category it was read with.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductVersion {
+    private String id;
+    private long seqNo;
+    private long primaryTerm;
+    private String category;
+}
@@ -0,0 +1,20 @@
+package org.demo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of reviews of a product and the sum of their ratings.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewRatingStats {
+    private long count;
+    private long sum;
+
+    public double average() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+}
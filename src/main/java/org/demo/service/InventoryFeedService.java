@@ -0,0 +1,235 @@
+package org.demo.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.demo.cache.ProductCache;
+import org.demo.cache.ProductQueryCache;
+import org.demo.model.InventoryDelta;
+import org.demo.repository.BulkItemFailure;
+import org.demo.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces high-frequency stock/price deltas per product and writes them as batched scripted
+ * updates once per window.
+ * <p>
+ * Deltas are merged into a {@link ConcurrentHashMap}, whose per-bin locking keeps writers for
+ * different products from contending. A flush removes entries one by one, so deltas arriving
+ * mid-flush simply start a new entry for the next window. When more than
+ * {@code max-pending} products are waiting, the submitting thread flushes inline, which bounds
+ * memory and slows the producer down. Flushes run one at a time, scheduled or inline, so the
+ * batches for a product reach Elasticsearch in submission order and the latest price wins.
+ * <p>
+ * A batch whose {@code _bulk} request fails without an answer, such as on a timeout or a 5xx,
+ * may or may not have been applied. It is kept as it is and sent again under the same id before
+ * anything newer; the update script skips products that already applied that id, so stock
+ * deltas are never counted twice. Items the cluster could not process, such as 429 rejections
+ * or unavailable shards, were not applied: they go back into the pending deltas and are sent
+ * with the next flush under a new batch id. Only items Elasticsearch rejected with a 4xx, such
+ * as a missing product, are dropped. Pending deltas are drained on shutdown.
+ */
+@Service
+public class InventoryFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryFeedService.class);
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductQueryCache productQueryCache;
+    private final int maxPending;
+    private final int maxBatchSize;
+
+    private final Map<String, InventoryDelta> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    // Guarded by flushLock
+    private final Deque<Batch> unconfirmed = new ArrayDeque<>();
+    // Guarded by flushLock; merged back into pending once a flush is done, not to be sent again by it
+    private final List<InventoryDelta> requeued = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong requeuedCount = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public InventoryFeedService(ProductService productService,
+                                ProductRepository productRepository,
+                                ProductCache productCache,
+                                ProductQueryCache productQueryCache,
+                                @Value("${products.feed.window:200ms}") Duration window,
+                                @Value("${products.feed.max-pending:100000}") int maxPending,
+                                @Value("${products.feed.max-batch:1000}") int maxBatchSize,
+                                MeterRegistry registry) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.productQueryCache = productQueryCache;
+        this.maxPending = maxPending;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-feed-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("products.feed.pending", pending, Map::size)
+                .description("Products with deltas waiting for the next flush")
+                .register(registry);
+        registerDeltaCounter(registry, "accepted", accepted);
+        registerDeltaCounter(registry, "applied", applied);
+        registerDeltaCounter(registry, "requeued", requeuedCount);
+        registerDeltaCounter(registry, "failed", failed);
+        long windowMillis = window.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void registerDeltaCounter(MeterRegistry registry, String outcome, AtomicLong count) {
+        FunctionCounter.builder("products.feed.deltas", count, AtomicLong::get)
+                .description("Inventory deltas by outcome; applied, requeued and failed count coalesced deltas")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Validates and queues the deltas; they reach Elasticsearch with the next flush.
+     */
+    public int submit(List<InventoryDelta> deltas) {
+        for (InventoryDelta delta : deltas) {
+            productService.validateInventoryDelta(delta);
+        }
+        for (InventoryDelta delta : deltas) {
+            pending.merge(delta.getProductId(), delta, InventoryDelta::merge);
+        }
+        accepted.addAndGet(deltas.size());
+
+        if (pending.size() > maxPending) {
+            flush();
+        }
+        return deltas.size();
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            try {
+                flushLocked();
+            } finally {
+                requeue();
+            }
+        }
+    }
+
+    private void flushLocked() {
+        // Older batches first, so that no newer price for the same product is overtaken
+        while (!unconfirmed.isEmpty()) {
+            if (!apply(unconfirmed.peekFirst())) {
+                return;
+            }
+            unconfirmed.removeFirst();
+        }
+        List<InventoryDelta> deltas = new ArrayList<>(Math.min(maxBatchSize, pending.size()));
+        for (String productId : pending.keySet()) {
+            InventoryDelta delta = pending.remove(productId);
+            if (delta == null) {
+                continue;
+            }
+            deltas.add(delta);
+            if (deltas.size() >= maxBatchSize) {
+                if (!applyNew(deltas)) {
+                    return;
+                }
+                deltas = new ArrayList<>(maxBatchSize);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            applyNew(deltas);
+        }
+    }
+
+    /**
+     * Puts the deltas the cluster could not process back in front of anything submitted since.
+     */
+    private void requeue() {
+        for (InventoryDelta delta : requeued) {
+            pending.merge(delta.getProductId(), delta, (newer, older) -> older.merge(newer));
+        }
+        requeued.clear();
+    }
+
+    private boolean applyNew(List<InventoryDelta> deltas) {
+        Batch batch = new Batch(TimeOrderedIdGenerator.next(), deltas);
+        if (apply(batch)) {
+            return true;
+        }
+        unconfirmed.addLast(batch);
+        return false;
+    }
+
+    /**
+     * @return false when the request failed as a whole, so the outcome is unknown
+     */
+    private boolean apply(Batch batch) {
+        Map<String, BulkItemFailure> failures;
+        try {
+            failures = productRepository.bulkApplyDeltas(batch.id(), batch.deltas());
+        } catch (RuntimeException e) {
+            log.warn("Inventory flush of {} products failed, will resend: {}", batch.deltas().size(), e.getMessage());
+            return false;
+        }
+
+        for (InventoryDelta delta : batch.deltas()) {
+            productCache.invalidate(delta.getProductId());
+            BulkItemFailure failure = failures.get(delta.getProductId());
+            if (failure == null) {
+                applied.incrementAndGet();
+            } else if (failure.isRetryable()) {
+                // Not applied, so safe to send again in a batch with a new id
+                requeued.add(delta);
+                requeuedCount.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                log.warn("Inventory update for product {} rejected: {}", delta.getProductId(), failure.getReason());
+            }
+        }
+        if (failures.values().stream().anyMatch(BulkItemFailure::isRetryable)) {
+            log.warn("Inventory flush: the cluster could not process some of {} products, will resend them",
+                    batch.deltas().size());
+        }
+        // Price and stock show up in every list result, so list caches are dropped once per batch
+        productQueryCache.invalidateAll();
+        return true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Inventory flush failed: {}", e.getMessage());
+        }
+    }
+
+    private record Batch(String id, List<InventoryDelta> deltas) {
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+}
@@ -0,0 +1,350 @@
+package org.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.demo.cache.ProductCache;
+import org.demo.cache.ProductQueryCache;
+import org.demo.dto.BulkIngestResponse;
+import org.demo.dto.BulkItemResult;
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.demo.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingests newline-delimited products into Elasticsearch. Lines are validated as they are read,
+ * grouped into _bulk requests bounded by action count and payload size, and up to
+ * {@code concurrency} requests are kept in flight. Reading blocks while every slot is busy,
+ * which pushes back on the client instead of buffering the upload.
+ */
+@Service
+public class ProductBulkService {
+
+    private final ProductService productService;
+    private final ProductReviewService productReviewService;
+    private final ProductNameGuard productNameGuard;
+    private final ProductCache productCache;
+    private final ProductQueryCache productQueryCache;
+    private final ProductRepository productRepository;
+    private final ObjectReader productReader;
+    private final Validator validator;
+    private final int maxActions;
+    private final long maxBytes;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    public ProductBulkService(ProductService productService,
+                              ProductReviewService productReviewService,
+                              ProductNameGuard productNameGuard,
+                              ProductCache productCache,
+                              ProductQueryCache productQueryCache,
+                              ProductRepository productRepository,
+                              ObjectMapper objectMapper,
+                              Validator validator,
+                              @Value("${products.bulk.max-actions:1000}") int maxActions,
+                              @Value("${products.bulk.max-size:5MB}") DataSize maxSize,
+                              @Value("${products.bulk.concurrency:4}") int concurrency) {
+        this.productService = productService;
+        this.productReviewService = productReviewService;
+        this.productNameGuard = productNameGuard;
+        this.productCache = productCache;
+        this.productQueryCache = productQueryCache;
+        this.productRepository = productRepository;
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.validator = validator;
+        this.maxActions = maxActions;
+        this.maxBytes = maxSize.toBytes();
+        this.concurrency = concurrency;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "product-bulk-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param verbose also report successfully indexed items, not only failures
+     */
+    @Timed(value = "products.service", histogram = true)
+    public BulkIngestResponse ingest(InputStream body, boolean verbose) throws IOException {
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(concurrency);
+        BulkResults results = new BulkResults(verbose);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<PendingItem> batch = new ArrayList<>();
+        long batchBytes = 0;
+        long lineNumber = 0;
+        String line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                Product product;
+                try {
+                    product = parseAndPrepare(line);
+                } catch (JsonProcessingException e) {
+                    results.failed(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                } catch (IllegalArgumentException e) {
+                    results.failed(lineNumber, null, e.getMessage());
+                    continue;
+                }
+
+                batch.add(new PendingItem(lineNumber, product));
+                // Character count of the source line is a close enough estimate of the request bytes
+                batchBytes += line.length();
+                if (batch.size() >= maxActions || batchBytes >= maxBytes) {
+                    submit(batch, inFlight, results);
+                    batch = new ArrayList<>();
+                    batchBytes = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, inFlight, results);
+            }
+        } finally {
+            // Wait for every in-flight request, even when the upload broke off
+            inFlight.acquireUninterruptibly(concurrency);
+        }
+
+        return results.toResponse((System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Product parseAndPrepare(String line) throws JsonProcessingException {
+        Product product = productReader.readValue(line);
+        if (product == null) {
+            throw new IllegalArgumentException("Empty product");
+        }
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+        return productService.prepareForSave(product);
+    }
+
+    private void submit(List<PendingItem> batch, Semaphore inFlight, BulkResults results) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a bulk slot");
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    index(batch, results);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void index(List<PendingItem> batch, BulkResults results) {
+        // Failures come back keyed by id, and one new name may only be claimed once: the first
+        // line wins, later duplicates within the batch are rejected
+        List<PendingItem> unique = new ArrayList<>(batch.size());
+        Set<String> ids = new HashSet<>();
+        Map<String, String> batchOwners = new HashMap<>();
+        for (PendingItem item : batch) {
+            Product product = item.product();
+            String batchOwner = batchOwners.putIfAbsent(ProductNameGuard.normalize(product.getName()), product.getId());
+            if (!ids.add(product.getId())) {
+                results.failed(item.line(), product.getId(), "Product id appears more than once in this batch");
+            } else if (batchOwner != null && !batchOwner.equals(product.getId())) {
+                results.failed(item.line(), product.getId(), alreadyExists(product));
+            } else {
+                unique.add(item);
+            }
+        }
+
+        // Reserved before the lookup, so a concurrent batch indexing the same new name is seen
+        // either as a reservation or as an indexed product. Whatever is not confirmed in the end,
+        // including after an unexpected exception, is released
+        List<PendingItem> reserved = new ArrayList<>(unique.size());
+        Set<String> confirmed = new HashSet<>();
+        try {
+            for (PendingItem item : unique) {
+                Product product = item.product();
+                if (productNameGuard.reserve(product.getName(), product.getId()) != null) {
+                    results.failed(item.line(), product.getId(), alreadyExists(product));
+                } else {
+                    reserved.add(item);
+                }
+            }
+            if (!reserved.isEmpty()) {
+                indexReserved(reserved, results, confirmed);
+            }
+        } finally {
+            for (PendingItem item : reserved) {
+                if (!confirmed.contains(item.product().getId())) {
+                    productNameGuard.release(item.product().getName(), item.product().getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param confirmed collects the ids whose name reservation was confirmed
+     */
+    private void indexReserved(List<PendingItem> reserved, BulkResults results, Set<String> confirmed) {
+        List<String> names = new ArrayList<>(reserved.size());
+        for (PendingItem item : reserved) {
+            names.add(item.product().getName());
+        }
+
+        Map<String, String> owners;
+        try {
+            // One terms lookup per batch instead of one existence query per product
+            owners = productNameGuard.findOwners(names);
+        } catch (RuntimeException e) {
+            failAll(reserved, results, e);
+            return;
+        }
+
+        List<PendingItem> accepted = new ArrayList<>(reserved.size());
+        List<Product> products = new ArrayList<>(reserved.size());
+        Map<String, List<ProductReview>> detached = new HashMap<>();
+        for (PendingItem item : reserved) {
+            Product product = item.product();
+            String owner = owners.get(ProductNameGuard.normalize(product.getName()));
+            // Re-importing a product under its own id is not a duplicate
+            if (owner != null && !owner.equals(product.getId())) {
+                results.failed(item.line(), product.getId(), alreadyExists(product));
+            } else {
+                accepted.add(item);
+                products.add(product);
+                List<ProductReview> reviews = productReviewService.detach(product);
+                if (productReviewService.isSeparate()) {
+                    // Even without reviews, the ones stored for an earlier import are replaced
+                    detached.put(product.getId(), reviews);
+                }
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> failures;
+        try {
+            failures = productRepository.bulkSave(products);
+        } catch (RuntimeException e) {
+            failAll(accepted, results, e);
+            return;
+        } finally {
+            // Re-imports may move products out of categories this batch doesn't name; bulk writes
+            // are rare enough that dropping every list result is the simpler, safe choice
+            productQueryCache.invalidateAll();
+        }
+
+        detached.keySet().removeAll(failures.keySet());
+        String reviewError = null;
+        try {
+            productReviewService.replace(detached);
+        } catch (RuntimeException e) {
+            reviewError = "Product indexed but its reviews were not: " + e.getMessage();
+        }
+
+        for (PendingItem item : accepted) {
+            Product product = item.product();
+            String id = product.getId();
+            productCache.invalidate(id);
+            if (failures.containsKey(id)) {
+                results.failed(item.line(), id, failures.get(id));
+                continue;
+            }
+            productNameGuard.confirm(product.getName(), id);
+            confirmed.add(id);
+            if (reviewError != null && detached.containsKey(id)) {
+                results.failed(item.line(), id, reviewError);
+            } else {
+                results.indexed(item.line(), id);
+            }
+        }
+    }
+
+    private static String alreadyExists(Product product) {
+        return "Product with name '" + product.getName() + "' already exists";
+    }
+
+    private void failAll(List<PendingItem> items, BulkResults results, RuntimeException e) {
+        for (PendingItem item : items) {
+            results.failed(item.line(), item.product().getId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record PendingItem(long line, Product product) {
+    }
+
+    private static final class BulkResults {
+        private final boolean verbose;
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final Queue<BulkItemResult> items = new ConcurrentLinkedQueue<>();
+
+        BulkResults(boolean verbose) {
+            this.verbose = verbose;
+        }
+
+        void indexed(long line, String id) {
+            indexed.incrementAndGet();
+            if (verbose) {
+                items.add(BulkItemResult.indexed(line, id));
+            }
+        }
+
+        void failed(long line, String id, String error) {
+            failed.incrementAndGet();
+            items.add(BulkItemResult.failed(line, id, error));
+        }
+
+        BulkIngestResponse toResponse(long tookMillis) {
+            List<BulkItemResult> sorted = new ArrayList<>(items);
+            sorted.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+            return new BulkIngestResponse(indexed.get() + failed.get(), indexed.get(), failed.get(), tookMillis, sorted);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position inside a point-in-time scan of the catalog. Serialized as an opaque, URL-safe
+ * continuation token so that clients can resume a stream where the previous one stopped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String pit;
+    private List<Object> after;
+
+    public static ProductCursor decode(String token) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token);
+            ProductCursor cursor = MAPPER.readValue(json, ProductCursor.class);
+            if (cursor.getPit() == null || cursor.getPit().isEmpty()) {
+                throw new IllegalArgumentException("Invalid continuation token");
+            }
+            return cursor;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to encode continuation token", e);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package org.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.demo.dto.ExportStatus;
+import org.demo.export.ExportFormat;
+import org.demo.export.ExportManifest;
+import org.demo.export.ExportPartWriter;
+import org.demo.export.SliceCheckpoint;
+import org.demo.repository.ProductRepository;
+import org.demo.repository.ProductSourcePage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshot export of the whole products index into gzip-compressed NDJSON or CSV files, for
+ * analytics jobs that would otherwise page through the REST API.
+ * <p>
+ * An export reads one point in time split into slices, each slice on its own thread and into
+ * its own part file, so shards are read and documents compressed on all cores at once. Each
+ * slice holds a single page in memory. Every few pages a slice ends its gzip member, forces it
+ * to disk and records where it got to; an export that failed or was interrupted by a shutdown
+ * resumes from there for as long as its point in time is kept alive. A complete export is
+ * marked by an empty {@code _SUCCESS} file. Runs one export at a time.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String SUCCESS = "_SUCCESS";
+    private static final Pattern EXPORT_ID = Pattern.compile("products-\\d{8}T\\d{6}Z");
+    private static final DateTimeFormatter ID_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int slices;
+    private final int pageSize;
+    private final Duration keepAlive;
+    private final int checkpointPages;
+    private final int compressionLevel;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    private volatile Progress progress;
+    private volatile ExportStatus status = ExportStatus.idle();
+
+    public ProductExportService(ProductRepository productRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${products.export.dir:exports}") Path directory,
+                                @Value("${products.export.slices:0}") int slices,
+                                @Value("${products.export.page-size:1000}") int pageSize,
+                                @Value("${products.export.keep-alive:30m}") Duration keepAlive,
+                                @Value("${products.export.checkpoint-pages:10}") int checkpointPages,
+                                @Value("${products.export.compression-level:1}") int compressionLevel) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.slices = slices > 0 ? slices : Runtime.getRuntime().availableProcessors();
+        this.pageSize = pageSize;
+        this.keepAlive = keepAlive;
+        this.checkpointPages = checkpointPages;
+        this.compressionLevel = compressionLevel;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "product-export-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a new export in the background.
+     *
+     * @throws IllegalStateException if an export is already running
+     */
+    public ExportStatus start(ExportFormat format) {
+        acquire();
+        try {
+            Instant startedAt = Instant.now();
+            String id = "products-" + ID_FORMAT.format(startedAt);
+            Path target = directory.resolve(id);
+            if (Files.exists(target)) {
+                throw new IllegalStateException("Export " + id + " already exists");
+            }
+            Files.createDirectories(target);
+
+            long total = productRepository.count();
+            String pointInTimeId = productRepository.openPointInTime(keepAlive);
+            ExportManifest manifest = new ExportManifest(id, format, slices, pointInTimeId, total, startedAt);
+            writeJson(target.resolve(MANIFEST), manifest);
+
+            List<SliceCheckpoint> checkpoints = new ArrayList<>(slices);
+            for (int slice = 0; slice < slices; slice++) {
+                checkpoints.add(SliceCheckpoint.start(slice));
+            }
+            return launch(target, manifest, checkpoints);
+        } catch (IOException e) {
+            running.set(false);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Continues a failed or interrupted export from the last checkpoint of each slice.
+     *
+     * @throws IllegalArgumentException if there is no export with this id
+     * @throws IllegalStateException    if an export is already running or this one has completed
+     */
+    public ExportStatus resume(String id) {
+        Path target = directory.resolve(id);
+        if (!EXPORT_ID.matcher(id).matches() || !Files.exists(target.resolve(MANIFEST))) {
+            throw new IllegalArgumentException("Unknown export " + id);
+        }
+        acquire();
+        try {
+            if (Files.exists(target.resolve(SUCCESS))) {
+                throw new IllegalStateException("Export " + id + " has already completed");
+            }
+            ExportManifest manifest = objectMapper.readValue(target.resolve(MANIFEST).toFile(), ExportManifest.class);
+            List<SliceCheckpoint> checkpoints = new ArrayList<>(manifest.getSlices());
+            for (int slice = 0; slice < manifest.getSlices(); slice++) {
+                Path checkpoint = checkpointFile(target, slice);
+                checkpoints.add(Files.exists(checkpoint)
+                        ? objectMapper.readValue(checkpoint.toFile(), SliceCheckpoint.class)
+                        : SliceCheckpoint.start(slice));
+            }
+            log.info("Resuming export {}", id);
+            return launch(target, manifest, checkpoints);
+        } catch (IOException e) {
+            running.set(false);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Live progress of the running export, or the outcome of the last one.
+     */
+    public ExportStatus status() {
+        Progress current = progress;
+        return current != null ? current.status("running", null, null) : status;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Let the slices checkpoint what they have written, so the export can be resumed from there
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void acquire() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An export is already running");
+        }
+    }
+
+    private ExportStatus launch(Path target, ExportManifest manifest, List<SliceCheckpoint> checkpoints) {
+        Progress started = new Progress(target, manifest, checkpoints);
+        progress = started;
+        CompletableFuture<?>[] pending = checkpoints.stream()
+                .filter(checkpoint -> !checkpoint.isDone())
+                .map(checkpoint -> CompletableFuture.runAsync(() -> exportSlice(started, checkpoint), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(pending).whenComplete((ignored, failure) -> finish(started, failure));
+        return started.status("running", null, null);
+    }
+
+    private void exportSlice(Progress progress, SliceCheckpoint from) {
+        ExportManifest manifest = progress.manifest;
+        ExportFormat format = manifest.getFormat();
+        int slice = from.getSlice();
+        Path part = progress.target.resolve(String.format(Locale.ROOT, "part-%04d.%s", slice, format.fileSuffix()));
+        try (ExportPartWriter writer = new ExportPartWriter(part, from.getOffset(), format, objectMapper,
+                compressionLevel)) {
+            String pointInTimeId = manifest.getPointInTimeId();
+            List<Object> searchAfter = from.getSearchAfter();
+            long exported = from.getExported();
+            long offset = from.getOffset();
+            boolean done = false;
+            int pages = 0;
+            while (!done && !progress.failed && !stopping) {
+                ProductSourcePage page = productRepository.findSourcePageAfter(pointInTimeId, keepAlive,
+                        slice, manifest.getSlices(), searchAfter, pageSize, format.columns());
+                writer.write(page.getSources());
+                exported += page.getSources().size();
+                progress.exported.addAndGet(page.getSources().size());
+                searchAfter = page.getSearchAfter();
+                pointInTimeId = page.getPointInTimeId();
+                done = page.getSources().size() < pageSize;
+
+                if (++pages % checkpointPages == 0 && !done) {
+                    offset = checkpoint(progress, writer, new SliceCheckpoint(slice, searchAfter, exported, offset, false));
+                }
+            }
+            checkpoint(progress, writer, new SliceCheckpoint(slice, searchAfter, exported, offset, done));
+        } catch (IOException e) {
+            progress.failed = true;
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            progress.failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Makes everything written so far durable, then records it.
+     *
+     * @param checkpoint the new position, with the offset of the previous checkpoint
+     * @return the new offset
+     */
+    private long checkpoint(Progress progress, ExportPartWriter writer, SliceCheckpoint checkpoint) throws IOException {
+        long offset = writer.checkpoint();
+        progress.bytes.addAndGet(offset - checkpoint.getOffset());
+        checkpoint.setOffset(offset);
+        writeJson(checkpointFile(progress.target, checkpoint.getSlice()), checkpoint);
+        return offset;
+    }
+
+    private void finish(Progress finished, Throwable failure) {
+        ExportManifest manifest = finished.manifest;
+        try {
+            if (failure == null && !finished.failed && !stopping) {
+                Files.createFile(finished.target.resolve(SUCCESS));
+                try {
+                    productRepository.closePointInTime(manifest.getPointInTimeId());
+                } catch (RuntimeException e) {
+                    log.warn("Could not close the point in time of export {}", manifest.getId(), e);
+                }
+                status = finished.status("succeeded", Instant.now(), null);
+                log.info("Exported {} documents into {}", finished.exported.get(), finished.target);
+            } else {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause()
+                        : failure;
+                String error = cause != null ? cause.getMessage() : "Interrupted by shutdown";
+                status = finished.status("failed", Instant.now(), error);
+                log.error("Export {} stopped after {} documents; resume it within {} to continue",
+                        manifest.getId(), finished.exported.get(), keepAlive, cause);
+            }
+        } catch (IOException | RuntimeException e) {
+            status = finished.status("failed", Instant.now(), e.getMessage());
+            log.error("Export {} failed", manifest.getId(), e);
+        } finally {
+            progress = null;
+            running.set(false);
+        }
+    }
+
+    private void writeJson(Path path, Object value) throws IOException {
+        // Replaced in one step, so a crash leaves either the old or the new content
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), value);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path checkpointFile(Path target, int slice) {
+        return target.resolve(String.format(Locale.ROOT, "part-%04d.checkpoint.json", slice));
+    }
+
+    private static final class Progress {
+        private final Path target;
+        private final ExportManifest manifest;
+        private final AtomicLong exported = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile boolean failed;
+
+        private Progress(Path target, ExportManifest manifest, List<SliceCheckpoint> checkpoints) {
+            this.target = target;
+            this.manifest = manifest;
+            checkpoints.forEach(checkpoint -> {
+                exported.addAndGet(checkpoint.getExported());
+                bytes.addAndGet(checkpoint.getOffset());
+            });
+        }
+
+        private ExportStatus status(String state, Instant finishedAt, String error) {
+            return new ExportStatus(manifest.getId(), state, manifest.getFormat().name().toLowerCase(Locale.ROOT),
+                    target.toAbsolutePath().toString(), manifest.getSlices(), exported.get(), manifest.getTotal(),
+                    bytes.get(), manifest.getStartedAt(), finishedAt, error);
+        }
+    }
+}
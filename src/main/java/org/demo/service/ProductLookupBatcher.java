@@ -0,0 +1,176 @@
+package org.demo.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.demo.client.HedgedReads;
+import org.demo.model.Product;
+import org.demo.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Product lookups by id, with concurrent lookups merged into one {@code _mget}.
+ * <p>
+ * A lookup that finds no other lookup in flight goes out alone, so an idle service adds no
+ * latency. Otherwise it opens a batch and waits up to {@code window} for more lookups to join,
+ * or until the batch is full, then fetches the whole batch in one round trip; lookups of the
+ * same id share a slot. A burst of lookups for one page thus costs two round trips instead of
+ * one per product.
+ */
+@Component
+public class ProductLookupBatcher {
+
+    private final ProductRepository productRepository;
+    private final HedgedReads hedgedReads;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+
+    private final Object lock = new Object();
+    private Batch open;
+    private int inFlight;
+
+    public ProductLookupBatcher(ProductRepository productRepository,
+                                HedgedReads hedgedReads,
+                                @Value("${products.lookup.batch-window:200us}") Duration window,
+                                @Value("${products.lookup.max-batch:100}") int maxBatchSize,
+                                MeterRegistry registry) {
+        this.productRepository = productRepository;
+        this.hedgedReads = hedgedReads;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("products.lookup.batch.size")
+                .description("Product ids fetched per round trip by GET /api/products/{id}")
+                .register(registry);
+    }
+
+    public Optional<Product> findById(String id) {
+        if (windowNanos <= 0 || maxBatchSize <= 1) {
+            batchSizes.record(1);
+            return hedgedReads.read(() -> productRepository.findById(id));
+        }
+
+        Batch batch = null;
+        CompletableFuture<Optional<Product>> result = null;
+        boolean leader = false;
+        synchronized (lock) {
+            if (open == null && inFlight == 0) {
+                inFlight++;
+            } else {
+                if (open == null) {
+                    open = new Batch(Thread.currentThread());
+                    leader = true;
+                }
+                batch = open;
+                result = batch.lookups.computeIfAbsent(id, key -> new CompletableFuture<>());
+                if (batch.lookups.size() >= maxBatchSize) {
+                    close(batch);
+                    LockSupport.unpark(batch.leader);
+                }
+            }
+        }
+
+        if (batch == null) {
+            try {
+                batchSizes.record(1);
+                return hedgedReads.read(() -> productRepository.findById(id));
+            } finally {
+                synchronized (lock) {
+                    inFlight--;
+                }
+            }
+        }
+        if (leader) {
+            collect(batch);
+            fetch(batch);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches a batch the caller already has in hand in one round trip, without the window.
+     *
+     * @return the products that exist, keyed by id
+     */
+    public Map<String, Product> findAllById(Collection<String> ids) {
+        batchSizes.record(ids.size());
+        Map<String, Product> found = new HashMap<>();
+        hedgedReads.read(() -> productRepository.findAllById(ids))
+                .forEach(product -> found.put(product.getId(), product));
+        return found;
+    }
+
+    /**
+     * Waits out the window unless the batch fills up first, then closes it to further lookups.
+     */
+    private void collect(Batch batch) {
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining;
+        while (!batch.closed && (remaining = deadline - System.nanoTime()) > 0
+                && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        synchronized (lock) {
+            close(batch);
+            inFlight++;
+        }
+    }
+
+    private void fetch(Batch batch) {
+        Set<String> ids = batch.lookups.keySet();
+        try {
+            batchSizes.record(ids.size());
+            Map<String, Product> found = new HashMap<>();
+            if (ids.size() == 1) {
+                String id = ids.iterator().next();
+                hedgedReads.read(() -> productRepository.findById(id)).ifPresent(product -> found.put(id, product));
+            } else {
+                hedgedReads.read(() -> productRepository.findAllById(ids))
+                        .forEach(product -> found.put(product.getId(), product));
+            }
+            batch.lookups.forEach((id, lookup) -> lookup.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException e) {
+            batch.lookups.values().forEach(lookup -> lookup.completeExceptionally(e));
+        } finally {
+            synchronized (lock) {
+                inFlight--;
+            }
+        }
+    }
+
+    private void close(Batch batch) {
+        if (open == batch) {
+            open = null;
+        }
+        batch.closed = true;
+    }
+
+    private static final class Batch {
+        private final Thread leader;
+        // Only modified under the lock while the batch is open
+        private final Map<String, CompletableFuture<Optional<Product>>> lookups = new LinkedHashMap<>();
+        private volatile boolean closed;
+
+        Batch(Thread leader) {
+            this.leader = leader;
+        }
+    }
+}
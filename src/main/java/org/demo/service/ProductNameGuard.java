@@ -0,0 +1,284 @@
+package org.demo.service;
+
+import org.demo.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Name uniqueness checks against the normalized {@code name.keyword} subfield.
+ * <p>
+ * Concurrent checks are coalesced: the first caller to find the queue idle becomes the leader and
+ * drains everything queued so far into a single terms lookup, while later callers wait for that
+ * result. A leader runs at most {@value #MAX_LEADER_ROUNDS} lookups and then promotes the caller
+ * of the oldest queued check, so no request serves other callers' lookups for long. Names
+ * confirmed as taken are remembered in a small LRU so that repeated attempts to create the same
+ * duplicate are rejected without a cluster round trip.
+ * <p>
+ * A lookup only sees names that are already searchable. Writers therefore also reserve the
+ * names they are about to index; a reservation lasts until the write fails, or until the next
+ * index refresh after it succeeded, so two concurrent writes cannot both claim a new name. A
+ * reservation that is neither confirmed nor released expires after {@code reservation-ttl}, so
+ * a writer that never settles it cannot block the name for good.
+ */
+@Component
+public class ProductNameGuard {
+
+    private static final int MAX_LEADER_ROUNDS = 2;
+
+    private final ProductRepository productRepository;
+    private final int maxBatchSize;
+    private final int cacheSize;
+    private final long cacheTtlNanos;
+    private final long refreshIntervalNanos;
+    private final long reservationTtlNanos;
+
+    private final ConcurrentLinkedQueue<PendingCheck> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Map<String, Long> takenNames;
+    // Keyed by normalized name
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public ProductNameGuard(ProductRepository productRepository,
+                            @Value("${products.name-check.max-batch:500}") int maxBatchSize,
+                            @Value("${products.name-check.cache-size:10000}") int cacheSize,
+                            @Value("${products.name-check.cache-ttl:30s}") Duration cacheTtl,
+                            @Value("${products.name-check.reservation-ttl:30s}") Duration reservationTtl,
+                            @Value("${products.index.refresh-interval:1s}") Duration refreshInterval) {
+        this.productRepository = productRepository;
+        this.maxBatchSize = maxBatchSize;
+        this.cacheSize = cacheSize;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        this.refreshIntervalNanos = Math.max(0, refreshInterval.toNanos());
+        this.reservationTtlNanos = reservationTtl.toNanos();
+        this.takenNames = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > ProductNameGuard.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Mirrors the {@code name_normalizer} in product-settings.json.
+     */
+    public static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isTaken(String name) {
+        String normalized = normalize(name);
+        if (isCachedAsTaken(normalized)) {
+            return true;
+        }
+
+        PendingCheck check = new PendingCheck(normalized);
+        pending.add(check);
+        drain();
+        while (!check.result.isDone()) {
+            CompletableFuture<Void> promoted = check.promoted;
+            CompletableFuture.anyOf(check.result, promoted).exceptionally(e -> null).join();
+            if (!check.result.isDone()) {
+                // Handed the lead; re-armed first, so a later hand-off is not lost
+                check.promoted = new CompletableFuture<>();
+                drain();
+            }
+        }
+        try {
+            return check.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resolves several names in one lookup, bypassing the coalescing queue. Used by bulk ingest,
+     * which already has its batch in hand.
+     *
+     * @return the owning product id for each taken name, keyed by normalized name
+     */
+    public Map<String, String> findOwners(Collection<String> names) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+            normalized.add(normalize(name));
+        }
+        Map<String, String> owners = lookup(normalized);
+        owners.keySet().forEach(this::markNormalizedTaken);
+        return owners;
+    }
+
+    public void markTaken(String name) {
+        markNormalizedTaken(normalize(name));
+    }
+
+    /**
+     * Claims the name for the product until {@link #release} or {@link #confirm}, or at most for
+     * the reservation TTL. Claiming a name the same product already holds succeeds.
+     *
+     * @return the id of the product holding the name, or null when the claim succeeded
+     */
+    public String reserve(String name, String productId) {
+        String normalized = normalize(name);
+        String[] holder = new String[1];
+        long now = System.nanoTime();
+        reservations.compute(normalized, (key, current) -> {
+            if (current == null || current.productId().equals(productId) || current.hasExpired(now)) {
+                return new Reservation(productId, now + reservationTtlNanos);
+            }
+            holder[0] = current.productId();
+            return current;
+        });
+        sweepReservations();
+        return holder[0];
+    }
+
+    /**
+     * Drops the claim after the write failed.
+     */
+    public void release(String name, String productId) {
+        reservations.computeIfPresent(normalize(name),
+                (key, current) -> current.productId().equals(productId) ? null : current);
+    }
+
+    /**
+     * Marks the name as taken after the write succeeded; the claim is kept until a refresh has
+     * made the product searchable.
+     */
+    public void confirm(String name, String productId) {
+        String normalized = normalize(name);
+        markNormalizedTaken(normalized);
+        long expiresAt = System.nanoTime() + refreshIntervalNanos;
+        reservations.computeIfPresent(normalized,
+                (key, current) -> current.productId().equals(productId) ? new Reservation(productId, expiresAt) : current);
+        sweepReservations();
+    }
+
+    /**
+     * Names are only freed by deletes and renames, which don't always know the old name,
+     * so the whole cache is dropped instead.
+     */
+    public void invalidateAll() {
+        synchronized (takenNames) {
+            takenNames.clear();
+        }
+    }
+
+    private void drain() {
+        int rounds = 0;
+        // Re-check after releasing the flag: a check queued while we held it is ours to run
+        while (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                List<PendingCheck> batch = new ArrayList<>();
+                PendingCheck next;
+                while (batch.size() < maxBatchSize && (next = pending.poll()) != null) {
+                    batch.add(next);
+                }
+                if (!batch.isEmpty()) {
+                    resolve(batch);
+                }
+            } finally {
+                draining.set(false);
+            }
+            if (++rounds >= MAX_LEADER_ROUNDS) {
+                PendingCheck oldest = pending.peek();
+                if (oldest != null) {
+                    oldest.promoted.complete(null);
+                }
+                return;
+            }
+        }
+    }
+
+    private void resolve(List<PendingCheck> batch) {
+        Set<String> names = new LinkedHashSet<>();
+        for (PendingCheck check : batch) {
+            names.add(check.name);
+        }
+
+        Map<String, String> owners;
+        try {
+            owners = lookup(names);
+        } catch (RuntimeException e) {
+            batch.forEach(check -> check.result.completeExceptionally(e));
+            return;
+        }
+
+        owners.keySet().forEach(this::markNormalizedTaken);
+        batch.forEach(check -> check.result.complete(owners.containsKey(check.name)));
+    }
+
+    /**
+     * Drops expired claims of names nobody reserved again, at most once per refresh interval.
+     */
+    private void sweepReservations() {
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last >= refreshIntervalNanos && lastSweep.compareAndSet(last, now)) {
+            reservations.values().removeIf(reservation -> reservation.hasExpired(now));
+        }
+    }
+
+    private Map<String, String> lookup(Collection<String> normalizedNames) {
+        Map<String, String> owners = new HashMap<>();
+        productRepository.findNamesByNormalizedNames(normalizedNames)
+                .forEach((id, name) -> owners.put(normalize(name), id));
+        return owners;
+    }
+
+    private boolean isCachedAsTaken(String normalized) {
+        synchronized (takenNames) {
+            Long expiresAt = takenNames.get(normalized);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (System.nanoTime() - expiresAt > 0) {
+                takenNames.remove(normalized);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void markNormalizedTaken(String normalized) {
+        synchronized (takenNames) {
+            takenNames.put(normalized, System.nanoTime() + cacheTtlNanos);
+        }
+    }
+
+    private record Reservation(String productId, long expiresAt) {
+        boolean hasExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+
+    private static final class PendingCheck {
+        private final String name;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // Completed when this check's caller is to take over draining
+        private volatile CompletableFuture<Void> promoted = new CompletableFuture<>();
+
+        PendingCheck(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.demo.service;
+
+import org.demo.model.Product;
+
+import java.io.IOException;
+import java.util.List;
+
+@FunctionalInterface
+public interface ProductPageConsumer {
+    void accept(List<Product> page) throws IOException;
+}
@@ -0,0 +1,45 @@
+package org.demo.service;
+
+import org.demo.model.Product;
+import org.demo.repository.ProductReactiveRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads served by {@link ProductReactiveRepository}, enabled with
+ * {@code products.execution.reactive-reads=true}. No thread is held while Elasticsearch works on
+ * a request. These reads go straight to the cluster: they bypass {@code ProductCache} and
+ * {@code ProductQueryCache}, which are built around blocking loaders.
+ */
+@Service
+@ConditionalOnProperty(name = "products.execution.reactive-reads", havingValue = "true")
+public class ProductReactiveService {
+
+    private final ProductReactiveRepository productReactiveRepository;
+
+    public ProductReactiveService(ProductReactiveRepository productReactiveRepository) {
+        this.productReactiveRepository = productReactiveRepository;
+    }
+
+    public Mono<Product> getProductById(String id) {
+        return productReactiveRepository.findById(id);
+    }
+
+    public Flux<Product> searchProductsByName(String name) {
+        return productReactiveRepository.findByNameContaining(name);
+    }
+
+    public Flux<Product> getProductsByCategory(String category) {
+        return productReactiveRepository.findByCategory(category);
+    }
+
+    public Flux<Product> getProductsByPriceRange(Double minPrice, Double maxPrice) {
+        return productReactiveRepository.findByPriceBetween(minPrice, maxPrice);
+    }
+
+    public Flux<Product> getProductsByCategoryAndMaxPrice(String category, Double maxPrice) {
+        return productReactiveRepository.findByCategoryAndPriceLessThan(category, maxPrice);
+    }
+}
@@ -0,0 +1,162 @@
+package org.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.demo.dto.ReindexStatus;
+import org.demo.repository.ProductIndexManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Zero-downtime reindex: copies the index behind the {@code products} alias into the next
+ * versioned index, built from the current template, and moves the alias over atomically.
+ * <p>
+ * The target is loaded with refresh and replicas off and restored afterwards. The bulk of the
+ * copy runs while the source keeps taking writes. Only then is the source write-blocked for a
+ * catch-up: documents written since are copied again, which rewrites just the changed ones as
+ * copies keep source versions, and documents deleted since are removed from the target. The
+ * block stays on for the swap, so the swap loses nothing; reads are served throughout. A
+ * document deleted and re-created during the copy, with its version starting over, keeps its
+ * earlier content. A failed job cancels the copy, deletes the target and lifts the block again.
+ * <p>
+ * Creating the target claims the job: nodes agree on the next index name, so of two nodes
+ * starting a reindex at once, one fails to create it and backs off. Runs one job at a time on a
+ * background thread.
+ */
+@Service
+public class ProductReindexService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReindexService.class);
+
+    private final ProductIndexManager indexManager;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReindexStatus status = ReindexStatus.idle();
+
+    private final boolean migrateLegacyIndex;
+
+    public ProductReindexService(ProductIndexManager indexManager,
+                                 @Value("${products.index.migrate-legacy-on-startup:false}") boolean migrateLegacyIndex) {
+        this.indexManager = indexManager;
+        this.migrateLegacyIndex = migrateLegacyIndex;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates the target index and starts the copy in the background.
+     *
+     * @throws IllegalStateException if a reindex is already running here or on another node
+     */
+    public ReindexStatus start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reindex is already running");
+        }
+        try {
+            String source = indexManager.currentIndex()
+                    .orElseThrow(() -> new IllegalStateException("No index behind alias " + indexManager.alias()));
+            String target = indexManager.nextIndexName();
+            indexManager.createIndex(target, true);
+            Instant startedAt = Instant.now();
+            status = new ReindexStatus("running", source, target, 0, startedAt, null, null);
+            executor.execute(() -> run(source, target, startedAt));
+            return status;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves a concrete {@code products} index from before aliases were used behind the alias.
+     * Its dynamic mapping typed review dates as epoch millis, so every review written in the
+     * current format would be rejected until it is migrated.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyIndex() {
+        if (!indexManager.isLegacyIndex()) {
+            return;
+        }
+        if (!migrateLegacyIndex) {
+            log.warn("'{}' is a concrete index, not an alias; run POST /api/index/_reindex to migrate it",
+                    indexManager.alias());
+            return;
+        }
+        log.info("'{}' is a concrete index, not an alias; migrating it", indexManager.alias());
+        try {
+            start();
+        } catch (IllegalStateException e) {
+            log.info("Not migrating '{}' here: {}", indexManager.alias(), e.getMessage());
+        }
+    }
+
+    public ReindexStatus status() {
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(String source, String target, Instant startedAt) {
+        boolean blocked = false;
+        boolean swapped = false;
+        try {
+            // Writes keep reaching the source while the bulk of it is copied
+            long copied = indexManager.copy(source, target,
+                    written -> status = new ReindexStatus("running", source, target, written, startedAt, null, null));
+
+            indexManager.setWriteBlock(source, true);
+            blocked = true;
+            indexManager.refresh(source);
+            long changed = indexManager.copy(source, target,
+                    written -> status = new ReindexStatus("running", source, target, copied + written, startedAt, null, null));
+            long deleted = indexManager.deleteMissing(source, target);
+            indexManager.finishBulkLoad(target);
+
+            long expected = indexManager.count(source);
+            long actual = indexManager.count(target);
+            if (actual != expected) {
+                throw new IllegalStateException("Copied " + actual + " of " + expected + " documents");
+            }
+
+            indexManager.swapAlias(source, target);
+            swapped = true;
+            status = new ReindexStatus("succeeded", source, target, copied + changed, startedAt, Instant.now(), null);
+            log.info("Reindexed {} documents from '{}' into '{}'; {} written and {} deleted during the copy",
+                    copied, source, target, changed, deleted);
+        } catch (RuntimeException e) {
+            if (blocked) {
+                try {
+                    indexManager.setWriteBlock(source, false);
+                } catch (RuntimeException unblock) {
+                    e.addSuppressed(unblock);
+                }
+            }
+            if (!swapped) {
+                try {
+                    indexManager.deleteIndex(target);
+                } catch (RuntimeException delete) {
+                    e.addSuppressed(delete);
+                }
+            }
+            status = new ReindexStatus("failed", source, target, status.getCopied(), startedAt,
+                    Instant.now(), e.getMessage());
+            log.error("Reindex from '{}' into '{}' failed", source, target, e);
+        } finally {
+            running.set(false);
+        }
+    }
+}
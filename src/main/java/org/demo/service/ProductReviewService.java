@@ -0,0 +1,354 @@
+package org.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.demo.cache.ProductCache;
+import org.demo.cache.ProductQueryCache;
+import org.demo.exception.ProductNotFoundException;
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.demo.model.ProductReviewDocument;
+import org.demo.repository.ProductRepository;
+import org.demo.repository.ProductReviewPage;
+import org.demo.repository.ProductReviewRepository;
+import org.demo.repository.ProductVersion;
+import org.demo.repository.ReviewRatingStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Review storage for {@code products.reviews.storage=separate}, where reviews live in the
+ * {@code product-reviews} index instead of inside the product document. Product reads and writes
+ * then cost the same however many reviews a product has.
+ * <p>
+ * Rating aggregates on the product are maintained asynchronously: a new review marks its product
+ * dirty, and once per window the dirty products get their count and sum recomputed from the
+ * review index in one aggregation and written back in one _bulk request. Recomputing rather than
+ * incrementing makes a flush idempotent, so a failed one is simply retried. A product is only
+ * recomputed once a refresh of the review index has made its first pending review visible, and
+ * again later if newer ones were not visible yet, so flushes never force a refresh. In the
+ * default {@code embedded} mode this service is inert and reviews stay in the product document.
+ * <p>
+ * A product written with reviews, by a create or a bulk import, replaces the reviews stored for
+ * it, so a re-import does not leave the previous ones next to the new aggregates.
+ * <p>
+ * Switching an existing catalog to separate storage moves the embedded reviews over in the
+ * background, page by page. Until that is done, a product's embedded reviews are also moved on
+ * demand before a review is added or its reviews are read, so the recomputed aggregates and
+ * the review pages never leave out reviews still sitting in the document.
+ */
+@Service
+public class ProductReviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReviewService.class);
+
+    private static final int MIGRATION_PAGE_SIZE = 500;
+    private static final long MIGRATION_RETRY_SECONDS = 30;
+
+    // product-reviews is created with Elasticsearch's default refresh interval
+    private static final long REVIEW_INDEX_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ProductReviewRepository productReviewRepository;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductQueryCache productQueryCache;
+    private final boolean separate;
+    private final int maxBatchSize;
+
+    // Dirty product ids with their category, needed to invalidate list results after the flush
+    private final Map<String, Dirty> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean migrated;
+
+    public ProductReviewService(ProductReviewRepository productReviewRepository,
+                                ProductRepository productRepository,
+                                ProductCache productCache,
+                                ProductQueryCache productQueryCache,
+                                @Value("${products.reviews.storage:embedded}") String storage,
+                                @Value("${products.reviews.stats-window:1s}") Duration statsWindow,
+                                @Value("${products.reviews.stats-max-batch:1000}") int maxBatchSize) {
+        this.productReviewRepository = productReviewRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.productQueryCache = productQueryCache;
+        this.maxBatchSize = maxBatchSize;
+
+        if (!"embedded".equals(storage) && !"separate".equals(storage)) {
+            throw new IllegalArgumentException("products.reviews.storage must be 'embedded' or 'separate', not '" + storage + "'");
+        }
+        this.separate = "separate".equals(storage);
+        if (separate) {
+            productReviewRepository.createIndexIfMissing();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "review-stats-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.execute(this::migrateEmbeddedReviews);
+            long windowMillis = statsWindow.toMillis();
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+            this.migrated = true;
+        }
+    }
+
+    public boolean isSeparate() {
+        return separate;
+    }
+
+    /**
+     * In separate mode, takes the reviews out of a product about to be written, leaving its rating
+     * aggregates in place. Returns nothing in embedded mode.
+     */
+    public List<ProductReview> detach(Product product) {
+        if (!separate || product.getReviews() == null || product.getReviews().isEmpty()) {
+            return List.of();
+        }
+        List<ProductReview> reviews = product.getReviews();
+        product.setReviews(new ArrayList<>());
+        return reviews;
+    }
+
+    /**
+     * Like {@link #store(Map)}, but first deletes the reviews already stored for these products,
+     * which the written product's aggregates no longer account for. A product mapped to no
+     * reviews just has its stored ones deleted.
+     */
+    public void replace(Map<String, List<ProductReview>> reviewsByProduct) {
+        if (!separate || reviewsByProduct.isEmpty()) {
+            return;
+        }
+        productReviewRepository.deleteByProductIdIn(reviewsByProduct.keySet());
+        store(reviewsByProduct);
+    }
+
+    /**
+     * Indexes the detached reviews of several products in one _bulk request.
+     */
+    public void store(Map<String, List<ProductReview>> reviewsByProduct) {
+        List<ProductReviewDocument> documents = new ArrayList<>();
+        reviewsByProduct.forEach((productId, reviews) -> {
+            for (ProductReview review : reviews) {
+                documents.add(ProductReviewDocument.of(productId, review));
+            }
+        });
+        if (!documents.isEmpty()) {
+            productReviewRepository.saveAll(documents);
+        }
+    }
+
+    /**
+     * Indexes a prepared review; the product's aggregates follow with the next flush.
+     *
+     * @throws RuntimeException if the product does not exist
+     */
+    public void add(String productId, ProductReview review) {
+        String category = prepare(productId);
+        productReviewRepository.save(ProductReviewDocument.of(productId, review));
+        long now = System.nanoTime();
+        dirty.merge(productId, new Dirty(category, now, now), Dirty::merge);
+    }
+
+    /**
+     * @throws RuntimeException if the product does not exist
+     */
+    public ProductReviewPage page(String productId, int page, int size) {
+        prepare(productId);
+        return productReviewRepository.findPageByProductId(productId, page, size);
+    }
+
+    /**
+     * Whether no product holds embedded reviews any more; always true in embedded mode.
+     */
+    public boolean isMigrated() {
+        return migrated;
+    }
+
+    /**
+     * Checks that the product exists and, while the migration runs, moves its embedded reviews
+     * first.
+     *
+     * @return the product's category, empty when it has none
+     */
+    private String prepare(String productId) {
+        String category;
+        if (migrated) {
+            ProductVersion product = productRepository.findVersion(productId)
+                    .orElseThrow(() -> new ProductNotFoundException(productId));
+            category = product.getCategory();
+        } else {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException(productId));
+            if (product.getReviews() != null && !product.getReviews().isEmpty()) {
+                moveEmbedded(List.of(product));
+            }
+            category = product.getCategory();
+        }
+        return category != null ? category : "";
+    }
+
+    private void migrateEmbeddedReviews() {
+        try {
+            long moved = 0;
+            List<Product> page;
+            while (!(page = productRepository.findWithEmbeddedReviews(MIGRATION_PAGE_SIZE)).isEmpty()) {
+                moveEmbedded(page);
+                moved += page.size();
+            }
+            migrated = true;
+            if (moved > 0) {
+                log.info("Moved the embedded reviews of {} products to the review index", moved);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Moving embedded reviews failed, retrying in {}s: {}", MIGRATION_RETRY_SECONDS, e.getMessage());
+            scheduler.schedule(this::migrateEmbeddedReviews, MIGRATION_RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Indexes the embedded reviews of the products, then empties their lists. Reviews are indexed
+     * under their product and review id, so moving a product twice, after a failure in between,
+     * stores nothing twice. The aggregates already count these reviews and stay as they are.
+     */
+    private void moveEmbedded(List<Product> products) {
+        Map<String, List<ProductReview>> reviewsByProduct = new HashMap<>();
+        Set<String> categories = new HashSet<>();
+        for (Product product : products) {
+            List<ProductReview> reviews = product.getReviews();
+            for (int i = 0; i < reviews.size(); i++) {
+                if (reviews.get(i).getId() == null) {
+                    // Reviews from before ids were assigned; the position is stable until the list is emptied
+                    reviews.get(i).setId(product.getId() + "-" + i);
+                }
+            }
+            reviewsByProduct.put(product.getId(), reviews);
+            if (product.getCategory() != null) {
+                categories.add(product.getCategory());
+            }
+        }
+        store(reviewsByProduct);
+
+        Map<String, String> failures = productRepository.bulkClearEmbeddedReviews(reviewsByProduct.keySet());
+        reviewsByProduct.keySet().forEach(productCache::invalidate);
+        productQueryCache.invalidateCategories(categories);
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Could not empty the embedded reviews of " + failures.size()
+                    + " products, e.g. " + failures.entrySet().iterator().next());
+        }
+    }
+
+    public void deleteAll(String productId) {
+        if (separate) {
+            dirty.remove(productId);
+            productReviewRepository.deleteByProductId(productId);
+        }
+    }
+
+    /**
+     * Recomputes the aggregates of the dirty products whose reviews a refresh has made visible.
+     */
+    public void flush() {
+        flush(false);
+    }
+
+    private void flush(boolean all) {
+        long now = System.nanoTime();
+        Map<String, Dirty> batch = new HashMap<>();
+        for (Map.Entry<String, Dirty> entry : dirty.entrySet()) {
+            Dirty marked = entry.getValue();
+            if (!all && now - marked.firstAdded() < REVIEW_INDEX_REFRESH_NANOS) {
+                continue;
+            }
+            // Only as marked; a review added meanwhile keeps the product for the next window
+            if (!dirty.remove(entry.getKey(), marked)) {
+                continue;
+            }
+            batch.put(entry.getKey(), marked);
+            if (batch.size() >= maxBatchSize) {
+                apply(batch, all);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            apply(batch, all);
+        }
+    }
+
+    private void apply(Map<String, Dirty> batch, boolean all) {
+        Map<String, String> failures;
+        try {
+            Map<String, ReviewRatingStats> stats = new HashMap<>(productReviewRepository.ratingStats(batch.keySet()));
+            for (String productId : batch.keySet()) {
+                stats.putIfAbsent(productId, new ReviewRatingStats(0, 0));
+            }
+            failures = productRepository.bulkSetRatingStats(stats);
+        } catch (RuntimeException e) {
+            // Recomputing is idempotent: mark the products dirty again for the next window
+            batch.forEach((productId, marked) -> dirty.merge(productId, marked, Dirty::merge));
+            log.warn("Review stats flush of {} products failed, will retry: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        long now = System.nanoTime();
+        Set<String> categories = new HashSet<>();
+        batch.forEach((productId, marked) -> {
+            productCache.invalidate(productId);
+            categories.add(marked.category());
+            String error = failures.get(productId);
+            if (error != null) {
+                // Typically the product was deleted in the meantime
+                log.warn("Review stats update for product {} rejected: {}", productId, error);
+            } else if (!all && now - marked.lastAdded() < REVIEW_INDEX_REFRESH_NANOS) {
+                // Reviews added after the first one may not have been visible yet
+                dirty.merge(productId, new Dirty(marked.category(), marked.lastAdded(), marked.lastAdded()), Dirty::merge);
+            }
+        });
+        productQueryCache.invalidateCategories(categories);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Review stats flush failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        if (!dirty.isEmpty()) {
+            // Nothing waits for the next refresh any more
+            productReviewRepository.refresh();
+            flush(true);
+        }
+    }
+
+    /**
+     * @param firstAdded when the oldest review not yet counted was added, in nanoTime
+     * @param lastAdded  when the newest one was
+     */
+    private record Dirty(String category, long firstAdded, long lastAdded) {
+        Dirty merge(Dirty newer) {
+            return new Dirty(newer.category, Math.min(firstAdded, newer.firstAdded), Math.max(lastAdded, newer.lastAdded));
+        }
+    }
+}
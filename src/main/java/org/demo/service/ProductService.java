@@ -1,170 +1,461 @@
 package org.demo.service;
 
-
+import io.micrometer.core.annotation.Timed;
+import org.demo.cache.ProductCache;
+import org.demo.cache.ProductQueryCache;
+import org.demo.cache.SuggestionCache;
+import org.demo.client.HedgedReads;
+import org.demo.dto.ProductPatch;
+import org.demo.dto.ProductSuggestion;
 import org.demo.exception.ProductAlreadyExistsException;
+import org.demo.exception.ProductNotFoundException;
+import org.demo.metrics.ProductMetrics;
+import org.demo.model.InventoryDelta;
 import org.demo.model.Product;
+import org.demo.model.ProductFields;
 import org.demo.model.ProductReview;
-import org.demo.model.Supplier;
+import org.demo.repository.ProductCursorPage;
 import org.demo.repository.ProductRepository;
+import org.demo.repository.ProductReviewPage;
+import org.demo.repository.ProductSearchPage;
+import org.demo.repository.ProductSearchQuery;
+import org.demo.repository.ProductVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @Service
+@Timed(value = "products.service", histogram = true)
 public class ProductService {
 
-    private final ProductRepository productRepository;
+    // Elasticsearch rejects pages beyond index.max_result_window (10k by default)
+    private static final int MAX_STREAM_PAGE_SIZE = 10_000;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    // Elasticsearch's default index.max_result_window
+    private static final int MAX_SEARCH_RESULT_WINDOW = 10_000;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_SUGGEST_PREFIX_LENGTH = 100;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_REVIEW_PAGE_SIZE = 100;
+    private static final int MAX_MGET_IDS = 1000;
 
-    public ProductService(ProductRepository productRepository) {
+    private final ProductRepository productRepository;
+    private final ProductWritePipeline productWritePipeline;
+    private final ProductNameGuard productNameGuard;
+    private final ProductCache productCache;
+    private final ProductQueryCache productQueryCache;
+    private final SuggestionCache suggestionCache;
+    private final ProductReviewService productReviewService;
+    private final ProductMetrics productMetrics;
+    private final HedgedReads hedgedReads;
+    private final ProductLookupBatcher productLookupBatcher;
+    private final Duration streamKeepAlive;
+    private final int patchMaxAttempts;
+
+    public ProductService(ProductRepository productRepository,
+                          ProductWritePipeline productWritePipeline,
+                          ProductNameGuard productNameGuard,
+                          ProductCache productCache,
+                          ProductQueryCache productQueryCache,
+                          SuggestionCache suggestionCache,
+                          ProductReviewService productReviewService,
+                          ProductMetrics productMetrics,
+                          HedgedReads hedgedReads,
+                          ProductLookupBatcher productLookupBatcher,
+                          @Value("${products.stream.keep-alive:5m}") Duration streamKeepAlive,
+                          @Value("${products.patch.max-attempts:3}") int patchMaxAttempts) {
         this.productRepository = productRepository;
+        this.productWritePipeline = productWritePipeline;
+        this.productNameGuard = productNameGuard;
+        this.productCache = productCache;
+        this.productQueryCache = productQueryCache;
+        this.suggestionCache = suggestionCache;
+        this.productReviewService = productReviewService;
+        this.productMetrics = productMetrics;
+        this.hedgedReads = hedgedReads;
+        this.productLookupBatcher = productLookupBatcher;
+        this.streamKeepAlive = streamKeepAlive;
+        this.patchMaxAttempts = patchMaxAttempts;
     }
 
-    public List<Product> getAllProducts() {
-        return  StreamSupport.stream(productRepository.findAll().spliterator(), false)
-                .collect(Collectors.toList());
+    /**
+     * Walks the catalog page by page through a point in time, handing each page to the consumer
+     * so that only one page is held in memory. Stops after {@code limit} products when given.
+     *
+     * @throws IllegalArgumentException if {@code limit} is given and not positive
+     * @return a continuation token to resume from, or {@code null} once the catalog is exhausted
+     */
+    public String streamProducts(ProductCursor cursor, int pageSize, Integer limit,
+                                 ProductPageConsumer consumer) throws IOException {
+        if (limit != null && limit <= 0) {
+            // Would open a point in time and hand out a token without reading anything
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int size = Math.min(Math.max(pageSize, 1), MAX_STREAM_PAGE_SIZE);
+        ProductCursor position = cursor != null
+                ? cursor
+                : new ProductCursor(productRepository.openPointInTime(streamKeepAlive), null);
+        long remaining = limit != null ? limit : Long.MAX_VALUE;
+
+        try {
+            while (remaining > 0) {
+                int requested = (int) Math.min(size, remaining);
+                ProductCursorPage page = productRepository.findPageAfter(
+                        position.getPit(), streamKeepAlive, position.getAfter(), requested);
+                position = new ProductCursor(page.getPointInTimeId(), page.getSearchAfter());
+
+                if (!page.getProducts().isEmpty()) {
+                    consumer.accept(page.getProducts());
+                }
+                remaining -= page.getProducts().size();
+
+                if (page.getProducts().size() < requested) {
+                    productRepository.closePointInTime(position.getPit());
+                    return null;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Nobody received a token for a point in time opened here, so nobody can resume it.
+            // One from a token is left to expire: the client may retry from that token.
+            if (cursor == null) {
+                closePointInTimeQuietly(position.getPit());
+            }
+            throw e;
+        }
+
+        return position.encode();
     }
 
     public Optional<Product> getProductById(String id) {
-        return productRepository.findById(id);
+        Optional<Product> product = productCache.get(id, productLookupBatcher::findById);
+        product.ifPresent(productMetrics::recordRead);
+        return product;
     }
 
-    public Product saveProduct(Product product) {
-        // Validate product doesn't already exist
-        if (product.getName() != null && productRepository.existsByName(product.getName())) {
-            throw new ProductAlreadyExistsException("Product with name '" + product.getName() + "' already exists");
+    /**
+     * Looks up several products at once. Cached products are served from the cache, the rest
+     * are fetched in a single _mget.
+     *
+     * @return the products that exist, in the order of the first occurrence of their id
+     */
+    public List<Product> getProductsByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_MGET_IDS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_MGET_IDS + " ids are required");
         }
-
-        // Set timestamps (if not using @PrePersist)
-        if (product.getCreatedAt() == null) {
-            product.setCreatedAt(Instant.now());
+        Set<String> distinct = new LinkedHashSet<>(ids);
+        if (distinct.contains(null)) {
+            throw new IllegalArgumentException("ids must not be null");
         }
-        product.setUpdatedAt(Instant.now());
-
-        // Generate ID if not provided
-        if (product.getId() == null || product.getId().isEmpty()) {
-            product.setId(UUID.randomUUID().toString());
+        Map<String, Product> found = productCache.getAll(distinct, productLookupBatcher::findAllById);
+        List<Product> products = new ArrayList<>(found.size());
+        for (String id : distinct) {
+            Product product = found.get(id);
+            if (product != null) {
+                productMetrics.recordRead(product);
+                products.add(product);
+            }
         }
+        return products;
+    }
 
-        // Process reviews if provided
-        if (product.getReviews() != null && !product.getReviews().isEmpty()) {
-            processReviews(product);
+    public Product saveProduct(Product product) {
+        Product prepared = prepareForSave(product);
+        String name = prepared.getName();
+        // Reserved first, so a concurrent create or bulk import of the same name is caught
+        // even before either product is searchable
+        if (name != null && productNameGuard.reserve(name, prepared.getId()) != null) {
+            throw new ProductAlreadyExistsException("Product with name '" + name + "' already exists");
         }
 
-        // Validate supplier if provided
-        if (product.getSupplier() != null) {
-            validateSupplier(product.getSupplier());
+        Product saved = null;
+        try {
+            // Validate product doesn't already exist
+            if (name != null && productNameGuard.isTaken(name)) {
+                throw new ProductAlreadyExistsException("Product with name '" + name + "' already exists");
+            }
+            List<ProductReview> reviews = productReviewService.detach(prepared);
+            saved = productRepository.save(prepared);
+            productReviewService.replace(Map.of(saved.getId(), reviews));
+        } finally {
+            if (name != null) {
+                if (saved != null) {
+                    productNameGuard.confirm(name, saved.getId());
+                } else {
+                    productNameGuard.release(name, prepared.getId());
+                }
+            }
         }
+        productCache.invalidate(saved.getId());
+        productQueryCache.invalidateCategories(Collections.singletonList(saved.getCategory()));
+        return saved;
+    }
 
-        // Initialize computed fields
-        initializeComputedFields(product);
-
-        return productRepository.save(product);
+    /**
+     * Applies the defaults and validation every written product goes through, without touching
+     * Elasticsearch. Shared by single saves and the bulk ingest path.
+     */
+    public Product prepareForSave(Product product) {
+        return productWritePipeline.prepare(product);
     }
 
 
+    /**
+     * Replaces the editable fields with a partial-document update conditional on the version read
+     * first, so a concurrent write is reported instead of overwritten, and fields the request
+     * does not carry (reviews, rating aggregates, inventory bookkeeping) are left in place.
+     */
     public Product updateProduct(String id, Product productDetails) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        ProductVersion current = productRepository.findVersion(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("name", productDetails.getName());
+        changes.put("description", productDetails.getDescription());
+        changes.put("price", productDetails.getPrice());
+        changes.put("category", productDetails.getCategory());
+        changes.put("stock", productDetails.getStock());
+
+        Product saved = productRepository.update(current, changes)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+        productCache.invalidate(id);
+        productQueryCache.invalidateCategories(Arrays.asList(current.getCategory(), saved.getCategory()));
+        productNameGuard.invalidateAll();
+        return saved;
+    }
+
+    /**
+     * Sends only the changed fields as a partial document in a single update request; a version
+     * conflict with a concurrent write is retried inside Elasticsearch, so there is no read first.
+     * The previous category is not known without one, so a category change drops every cached
+     * list result.
+     */
+    public void patchProduct(String id, ProductPatch patch) {
+        Map<String, Object> changes = patch.changes();
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("No fields to update");
+        }
 
-        product.setName(productDetails.getName());
-        product.setDescription(productDetails.getDescription());
-        product.setPrice(productDetails.getPrice());
-        product.setCategory(productDetails.getCategory());
-        product.setStock(productDetails.getStock());
+        String name = patch.getName();
+        ProductVersion updated = null;
+        if (name != null && productNameGuard.reserve(name, id) != null) {
+            throw new ProductAlreadyExistsException("Product with name '" + name + "' already exists");
+        }
+        try {
+            if (name != null) {
+                String owner = productNameGuard.findOwners(List.of(name)).get(ProductNameGuard.normalize(name));
+                if (owner != null && !owner.equals(id)) {
+                    throw new ProductAlreadyExistsException("Product with name '" + name + "' already exists");
+                }
+            }
+            updated = productRepository.patch(id, changes, Math.max(0, patchMaxAttempts - 1))
+                    .orElseThrow(() -> new ProductNotFoundException(id));
+        } finally {
+            if (name != null) {
+                if (updated != null) {
+                    productNameGuard.confirm(name, id);
+                } else {
+                    productNameGuard.release(name, id);
+                }
+            }
+        }
 
-        return productRepository.save(product);
+        productCache.invalidate(id);
+        if (changes.containsKey("category")) {
+            productQueryCache.invalidateAll();
+        } else {
+            productQueryCache.invalidateCategories(Collections.singletonList(updated.getCategory()));
+        }
+        if (patch.getName() != null) {
+            productNameGuard.invalidateAll();
+        }
     }
 
     public void deleteProduct(String id) {
+        // The category is needed to invalidate list results; the near cache usually has it
+        Optional<Product> existing = getProductById(id);
         productRepository.deleteById(id);
+        productReviewService.deleteAll(id);
+        productCache.invalidate(id);
+        productQueryCache.invalidateCategories(Collections.singletonList(existing.map(Product::getCategory).orElse(null)));
+        productNameGuard.invalidateAll();
     }
 
-    public List<Product> searchProductsByName(String name) {
-        return productRepository.findByNameContaining(name);
+    /**
+     * Full-text search with filters and facets in one round trip. Not cached: the space of text
+     * and filter combinations is too large for the result cache to pay off.
+     */
+    public ProductSearchPage searchProducts(ProductSearchQuery query) {
+        if (query.getPage() < 0 || query.getSize() < 1 || query.getSize() > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        if ((long) (query.getPage() + 1) * query.getSize() > MAX_SEARCH_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Search results are limited to the first " + MAX_SEARCH_RESULT_WINDOW
+                    + " hits; use GET /api/products to walk the whole catalog");
+        }
+        if (query.getMinPrice() != null && query.getMaxPrice() != null && query.getMinPrice() > query.getMaxPrice()) {
+            throw new IllegalArgumentException("minPrice must not exceed maxPrice");
+        }
+        return hedgedReads.read(() -> productRepository.search(query));
     }
 
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+    /**
+     * Autocomplete over name and brand. Prefixes are normalized the way the analyzer would treat
+     * them, so "Mac", "mac " and "MAC" share one cache entry and one in-flight lookup.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int size) {
+        if (size < 1 || size > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        String normalized = prefix == null ? "" : WHITESPACE.matcher(prefix.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        if (normalized.length() > MAX_SUGGEST_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("prefix must be at most " + MAX_SUGGEST_PREFIX_LENGTH + " characters");
+        }
+        return suggestionCache.get(normalized, size, () -> productRepository.suggest(normalized, size).stream()
+                .map(product -> new ProductSuggestion(product.getId(), product.getName(), product.getBrand()))
+                .toList());
     }
 
-    public List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+    public List<Product> searchProductsByName(String name) {
+        return searchProductsByName(name, ProductFields.ALL);
     }
 
-    public List<Product> getProductsByCategoryAndMaxPrice(String category, Double maxPrice) {
-        return productRepository.findByCategoryAndPriceLessThan(category, maxPrice);
+    public List<Product> searchProductsByName(String name, ProductFields fields) {
+        // Sparse results bypass the result cache, which holds full documents
+        if (fields.isAll()) {
+            return hedgedReads.read(() -> productRepository.findByNameContaining(name));
+        }
+        return hedgedReads.read(() ->
+                productRepository.findAllProjected(Criteria.where("name").contains(name), fields.includes()));
     }
 
-    private void processReviews(Product product) {
-        for (ProductReview review : product.getReviews()) {
-            // Generate review ID if not provided
-            if (review.getId() == null || review.getId().isEmpty()) {
-                review.setId(UUID.randomUUID().toString());
-            }
-
-            // Set review creation time if not provided
-            if (review.getCreatedAt() == null) {
-                review.setCreatedAt(LocalDateTime.now());
-            }
+    public List<Product> getProductsByCategory(String category) {
+        return getProductsByCategory(category, ProductFields.ALL);
+    }
 
-            // Validate rating
-            if (review.getRating() == null || review.getRating() < 1 || review.getRating() > 5) {
-                throw new IllegalArgumentException("Review rating must be between 1 and 5");
-            }
+    public List<Product> getProductsByCategory(String category, ProductFields fields) {
+        if (fields.isAll()) {
+            return productQueryCache.getByCategory(category, c -> hedgedReads.read(() -> productRepository.findByCategory(c)));
         }
+        return hedgedReads.read(() ->
+                productRepository.findAllProjected(Criteria.where("category").is(category), fields.includes()));
+    }
 
-        // Update average rating and total reviews
-        updateAverageRating(product);
+    public List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice) {
+        return getProductsByPriceRange(minPrice, maxPrice, ProductFields.ALL);
     }
 
-    private void validateSupplier(Supplier supplier) {
-        if (supplier.getName() == null || supplier.getName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Supplier name is required");
+    public List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice, ProductFields fields) {
+        if (fields.isAll()) {
+            return productQueryCache.getByPriceRange(minPrice, maxPrice,
+                    (min, max) -> hedgedReads.read(() -> productRepository.findByPriceBetween(min, max)));
         }
+        return hedgedReads.read(() -> productRepository.findAllProjected(
+                Criteria.where("price").between(minPrice, maxPrice), fields.includes()));
+    }
 
-        if (supplier.getContactEmail() != null && !isValidEmail(supplier.getContactEmail())) {
-            throw new IllegalArgumentException("Invalid supplier email format");
-        }
+    public List<Product> getProductsByCategoryAndMaxPrice(String category, Double maxPrice) {
+        return getProductsByCategoryAndMaxPrice(category, maxPrice, ProductFields.ALL);
+    }
 
-        // Set default values
-        if (supplier.getIsActive() == null) {
-            supplier.setIsActive(true);
+    public List<Product> getProductsByCategoryAndMaxPrice(String category, Double maxPrice, ProductFields fields) {
+        if (fields.isAll()) {
+            return productQueryCache.getByCategoryAndMaxPrice(category, maxPrice,
+                    (c, max) -> hedgedReads.read(() -> productRepository.findByCategoryAndPriceLessThan(c, max)));
         }
+        return hedgedReads.read(() -> productRepository.findAllProjected(
+                Criteria.where("category").is(category).and("price").lessThan(maxPrice), fields.includes()));
+    }
 
-        if (supplier.getRating() != null && (supplier.getRating() < 0 || supplier.getRating() > 5)) {
-            throw new IllegalArgumentException("Supplier rating must be between 0 and 5");
+    /**
+     * Appends one review with a scripted partial update. The rating is folded into the stored
+     * running sum, so the cost does not depend on how many reviews the product already has.
+     * With separate review storage the review goes to its own index instead and the product's
+     * rating catches up asynchronously.
+     */
+    public ProductReview addReview(String productId, ProductReview review) {
+        productWritePipeline.prepare(review);
+        if (productReviewService.isSeparate()) {
+            productReviewService.add(productId, review);
+            return review;
         }
+
+        Product product = productRepository.appendReview(productId, review, Instant.now())
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+
+        productCache.invalidate(productId);
+        productQueryCache.invalidateCategories(Collections.singletonList(product.getCategory()));
+        return review;
     }
 
-    private void initializeComputedFields(Product product) {
-        // Initialize average rating and total reviews if reviews exist
-        if (product.getReviews() != null && !product.getReviews().isEmpty()) {
-            updateAverageRating(product);
-        } else {
-            product.setAverageRating(0.0);
-            product.setTotalReviews(0);
+    /**
+     * One page of a product's reviews, newest first.
+     *
+     * @throws RuntimeException if the product does not exist
+     */
+    public ProductReviewPage getReviews(String productId, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_REVIEW_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_REVIEW_PAGE_SIZE);
+        }
+        if ((long) (page + 1) * size > MAX_SEARCH_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Reviews are limited to the first " + MAX_SEARCH_RESULT_WINDOW);
         }
+        if (productReviewService.isSeparate()) {
+            return productReviewService.page(productId, page, size);
+        }
+
+        Product product = getProductById(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+        List<ProductReview> reviews = product.getReviews() != null ? product.getReviews() : List.of();
+        // Reviews are appended, so the newest are at the end of the embedded list
+        int to = Math.max(reviews.size() - page * size, 0);
+        int from = Math.max(to - size, 0);
+        List<ProductReview> slice = new ArrayList<>(reviews.subList(from, to));
+        Collections.reverse(slice);
+        return new ProductReviewPage(slice, reviews.size());
     }
 
-    private void updateAverageRating(Product product) {
-        if (product.getReviews() != null && !product.getReviews().isEmpty()) {
-            double sum = product.getReviews().stream()
-                    .mapToDouble(ProductReview::getRating)
-                    .sum();
-            product.setAverageRating(sum / product.getReviews().size());
-            product.setTotalReviews(product.getReviews().size());
+    /**
+     * Applies the same price rule as {@link Product} to a feed delta.
+     */
+    public void validateInventoryDelta(InventoryDelta delta) {
+        if (delta.getProductId() == null || delta.getProductId().isEmpty()) {
+            throw new IllegalArgumentException("Product id is required");
+        }
+        if (delta.getPrice() == null && delta.getStockDelta() == null) {
+            throw new IllegalArgumentException("Delta must change price or stock");
+        }
+        if (delta.getPrice() != null && delta.getPrice() <= 0) {
+            throw new IllegalArgumentException("Price must be positive");
+        }
+        if (delta.getStockDelta() != null
+                && (delta.getStockDelta() > Integer.MAX_VALUE || delta.getStockDelta() < -Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Stock delta must be within the stock range");
         }
     }
 
-    private boolean isValidEmail(String email) {
-        return email != null && email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    private void closePointInTimeQuietly(String pointInTimeId) {
+        try {
+            productRepository.closePointInTime(pointInTimeId);
+        } catch (RuntimeException ignored) {
+            // expires on its own after the keep-alive
+        }
     }
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+package org.demo.service;
+
+import org.demo.model.Product;
+import org.demo.model.ProductReview;
+import org.demo.model.Supplier;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Defaults and validation applied to every product before it is written, as a fixed chain of
+ * steps built once and shared by single saves and bulk ingest.
+ * <p>
+ * The chain reads the clock once per product, compiles the email pattern once, generates ids
+ * with {@link TimeOrderedIdGenerator} and aggregates ratings in a single primitive pass over the
+ * reviews.
+ */
+@Component
+public class ProductWritePipeline {
+
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Product product, Instant now, LocalDateTime localNow);
+    }
+
+    private final Step[] steps = {
+            ProductWritePipeline::applyTimestamps,
+            ProductWritePipeline::applyId,
+            ProductWritePipeline::applyReviews,
+            ProductWritePipeline::applySupplier
+    };
+
+    public Product prepare(Product product) {
+        Instant now = Instant.now();
+        LocalDateTime localNow = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+        for (Step step : steps) {
+            step.apply(product, now, localNow);
+        }
+        return product;
+    }
+
+    public ProductReview prepare(ProductReview review) {
+        prepareReview(review, LocalDateTime.now());
+        return review;
+    }
+
+    private static void applyTimestamps(Product product, Instant now, LocalDateTime localNow) {
+        // Set timestamps (if not using @PrePersist)
+        if (product.getCreatedAt() == null) {
+            product.setCreatedAt(now);
+        }
+        product.setUpdatedAt(now);
+    }
+
+    private static void applyId(Product product, Instant now, LocalDateTime localNow) {
+        // Generate ID if not provided
+        if (product.getId() == null || product.getId().isEmpty()) {
+            product.setId(TimeOrderedIdGenerator.next());
+        }
+    }
+
+    /**
+     * Prepares each review and computes ratingSum, totalReviews and averageRating in the same pass.
+     */
+    private static void applyReviews(Product product, Instant now, LocalDateTime localNow) {
+        List<ProductReview> reviews = product.getReviews();
+        if (reviews == null || reviews.isEmpty()) {
+            product.setAverageRating(0.0);
+            product.setTotalReviews(0);
+            product.setRatingSum(0L);
+            return;
+        }
+
+        long sum = 0;
+        for (int i = 0, size = reviews.size(); i < size; i++) {
+            sum += prepareReview(reviews.get(i), localNow);
+        }
+        product.setRatingSum(sum);
+        product.setTotalReviews(reviews.size());
+        product.setAverageRating((double) sum / reviews.size());
+    }
+
+    private static void applySupplier(Product product, Instant now, LocalDateTime localNow) {
+        Supplier supplier = product.getSupplier();
+        if (supplier == null) {
+            return;
+        }
+
+        if (supplier.getName() == null || supplier.getName().isBlank()) {
+            throw new IllegalArgumentException("Supplier name is required");
+        }
+
+        if (supplier.getContactEmail() != null && !EMAIL.matcher(supplier.getContactEmail()).matches()) {
+            throw new IllegalArgumentException("Invalid supplier email format");
+        }
+
+        // Set default values
+        if (supplier.getIsActive() == null) {
+            supplier.setIsActive(true);
+        }
+
+        Double rating = supplier.getRating();
+        if (rating != null && (rating < 0 || rating > 5)) {
+            throw new IllegalArgumentException("Supplier rating must be between 0 and 5");
+        }
+    }
+
+    /**
+     * @return the validated rating
+     */
+    private static int prepareReview(ProductReview review, LocalDateTime localNow) {
+        // Validate rating
+        Integer rating = review.getRating();
+        if (rating == null || rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Review rating must be between 1 and 5");
+        }
+
+        // Generate review ID if not provided
+        if (review.getId() == null || review.getId().isEmpty()) {
+            review.setId(TimeOrderedIdGenerator.next());
+        }
+
+        // Set review creation time if not provided
+        if (review.getCreatedAt() == null) {
+            review.setCreatedAt(localNow);
+        }
+        return rating;
+    }
+}
@@ -0,0 +1,43 @@
+package org.demo.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates UUIDv7 strings: a 48-bit millisecond timestamp followed by random bits. Ids sort by
+ * creation time, which keeps index inserts append-friendly, and the random part comes from
+ * {@link ThreadLocalRandom}, so unlike {@code UUID.randomUUID()} there is no shared SecureRandom
+ * to contend on. The string is formatted directly, without an intermediate {@code UUID}.
+ */
+public final class TimeOrderedIdGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TimeOrderedIdGenerator() {
+    }
+
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = System.currentTimeMillis();
+        long msb = (millis << 16) | 0x7000L | (random.nextInt() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        char[] chars = new char[36];
+        writeHex(chars, 0, msb >>> 32, 8);
+        chars[8] = '-';
+        writeHex(chars, 9, msb >>> 16, 4);
+        chars[13] = '-';
+        writeHex(chars, 14, msb, 4);
+        chars[18] = '-';
+        writeHex(chars, 19, lsb >>> 48, 4);
+        chars[23] = '-';
+        writeHex(chars, 24, lsb, 12);
+        return new String(chars);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.demo.cache;
+
+import org.demo.exception.ElasticsearchUnavailableException;
+import org.demo.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCacheTest {
+
+    private final ProductCache cache = new ProductCache(new LocalCacheInvalidationBus(), 100,
+            Duration.ofMinutes(1), Duration.ofHours(1));
+
+    @Test
+    void productWrittenDuringBulkLoadIsNotCached() {
+        Map<String, Product> loaded = cache.getAll(List.of("1", "2"), ids -> {
+            // The write lands while the _mget is in flight
+            cache.invalidate("1");
+            return Map.of("1", product("1", "before"), "2", product("2", "before"));
+        });
+        assertThat(loaded).containsOnlyKeys("1", "2");
+
+        AtomicInteger loads = new AtomicInteger();
+        Map<String, Product> reloaded = cache.getAll(List.of("1", "2"), ids -> {
+            loads.incrementAndGet();
+            assertThat(ids).containsExactly("1");
+            return Map.of("1", product("1", "after"));
+        });
+        assertThat(loads).hasValue(1);
+        assertThat(reloaded.get("1").getName()).isEqualTo("after");
+        assertThat(reloaded.get("2").getName()).isEqualTo("before");
+    }
+
+    @Test
+    void invalidatedProductIsNotServedStale() {
+        cache.get("1", id -> Optional.of(product("1", "before")));
+        cache.invalidate("1");
+
+        assertThatThrownBy(() -> cache.get("1", id -> {
+            throw new ElasticsearchUnavailableException("down");
+        })).isInstanceOf(ElasticsearchUnavailableException.class);
+    }
+
+    private static Product product(String id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
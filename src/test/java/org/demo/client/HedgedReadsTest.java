@@ -0,0 +1,83 @@
+package org.demo.client;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgedReadsTest {
+
+    private MockElasticsearchServer server;
+    private RestClient restClient;
+    private ElasticsearchClient client;
+    private SimpleMeterRegistry registry;
+    private HedgedReads hedgedReads;
+    private int warmupRequests;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockElasticsearchServer();
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.port())).build();
+        client = new ElasticsearchClient(new ResilientElasticsearchTransport(
+                new RestClientTransport(restClient, new JacksonJsonpMapper()),
+                new CircuitBreaker(10, 10, 0.5, Duration.ofSeconds(10), 1),
+                Duration.ofSeconds(1), Duration.ofMillis(500), Duration.ofSeconds(10), Duration.ofSeconds(10)));
+        registry = new SimpleMeterRegistry();
+        hedgedReads = new HedgedReads(true, Duration.ofMillis(200), 16, registry);
+        // The first request of a client opens the connection and loads classes
+        get();
+        warmupRequests = server.requests();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        hedgedReads.shutdown();
+        restClient.close();
+        server.close();
+    }
+
+    @Test
+    void hedgeAnswersWhenTheFirstAttemptIsSlow() {
+        server.delayNext(3_000);
+
+        long start = System.nanoTime();
+        GetResponse<Map> response = hedgedReads.read(this::get);
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(response.found()).isTrue();
+        assertThat(took).isLessThan(Duration.ofSeconds(2));
+        assertThat(server.requests() - warmupRequests).isEqualTo(2);
+        assertThat(registry.counter("elasticsearch.hedge.sent").count()).isEqualTo(1);
+        assertThat(registry.counter("elasticsearch.hedge.won").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fastReadIsNotHedged() {
+        GetResponse<Map> response = hedgedReads.read(this::get);
+
+        assertThat(response.found()).isTrue();
+        assertThat(server.requests() - warmupRequests).isEqualTo(1);
+        assertThat(registry.counter("elasticsearch.hedge.sent").count()).isZero();
+    }
+
+    private GetResponse<Map> get() {
+        try {
+            return client.get(g -> g.index("products").id("1"), Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.demo.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local HTTP server that answers every request like Elasticsearch answers a found document
+ * GET, or with a 503 while told to. Latency is injected per request: each request takes the next
+ * queued delay, if any.
+ */
+final class MockElasticsearchServer implements AutoCloseable {
+
+    private static final byte[] FOUND = ("{\"_index\":\"products\",\"_id\":\"1\",\"_version\":1,\"_seq_no\":0,"
+            + "\"_primary_term\":1,\"found\":true,\"_source\":{\"id\":\"1\",\"name\":\"MacBook Pro\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UNAVAILABLE = ("{\"error\":{\"type\":\"unavailable_shards_exception\","
+            + "\"reason\":\"injected\"},\"status\":503}").getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Queue<Integer> delays = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean unavailable;
+
+    static {
+        // Without TCP_NODELAY, Nagle and delayed ACKs add ~40ms to every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    MockElasticsearchServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // One thread per in-flight request, so injected latency doesn't queue other requests
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void unavailable(boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    void delayNext(int millis) {
+        delays.add(millis);
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            Integer delay = delays.poll();
+            if (delay != null && !sleep(delay)) {
+                return;
+            }
+
+            boolean error = unavailable;
+            byte[] body = error ? UNAVAILABLE : FOUND;
+            // The 8.x client refuses to talk to anything that doesn't identify as Elasticsearch
+            exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(error ? 503 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * @return false when interrupted by {@link #close()}
+     */
+    private static boolean sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,124 @@
+package org.demo.client;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.apache.http.HttpHost;
+import org.demo.exception.ElasticsearchUnavailableException;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientElasticsearchTransportTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    private MockElasticsearchServer server;
+    private RestClient restClient;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockElasticsearchServer();
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.port())).build();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        restClient.close();
+        server.close();
+    }
+
+    @Test
+    void breakerOpensOnClusterFailuresThenHalfOpensAndCloses() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, OPEN_DURATION, 2);
+        ElasticsearchClient client = client(breaker);
+
+        server.unavailable(true);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> get(client)).isInstanceOf(IOException.class);
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Rejected without reaching the cluster
+        int requests = server.requests();
+        assertThatThrownBy(() -> get(client)).isInstanceOf(ElasticsearchUnavailableException.class);
+        assertThat(server.requests()).isEqualTo(requests);
+
+        server.unavailable(false);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        get(client);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        get(client);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeReopensBreaker() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, OPEN_DURATION, 2);
+        ElasticsearchClient client = client(breaker);
+        open(client, breaker);
+
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThatThrownBy(() -> get(client)).isInstanceOf(IOException.class);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void interruptedProbeCountsAsFailedInsteadOfHoldingTheBreakerHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, OPEN_DURATION, 1);
+        ElasticsearchClient client = client(breaker);
+        open(client, breaker);
+
+        server.unavailable(false);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        server.delayNext(5_000);
+        int requests = server.requests();
+        AtomicReference<Throwable> probeError = new AtomicReference<>();
+        Thread probe = new Thread(() -> {
+            try {
+                get(client);
+            } catch (Throwable e) {
+                probeError.set(e);
+            }
+        });
+        probe.start();
+        while (server.requests() == requests) {
+            Thread.sleep(5);
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        probe.interrupt();
+        probe.join(2_000);
+
+        assertThat(probeError.get()).isNotNull();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        get(client);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void open(ElasticsearchClient client, CircuitBreaker breaker) {
+        server.unavailable(true);
+        while (breaker.state() != CircuitBreaker.State.OPEN) {
+            assertThatThrownBy(() -> get(client)).isInstanceOf(IOException.class);
+        }
+    }
+
+    private ElasticsearchClient client(CircuitBreaker breaker) {
+        return new ElasticsearchClient(new ResilientElasticsearchTransport(
+                new RestClientTransport(restClient, new JacksonJsonpMapper()), breaker,
+                Duration.ofSeconds(1), Duration.ofMillis(500), Duration.ofSeconds(10), Duration.ofSeconds(10)));
+    }
+
+    private static void get(ElasticsearchClient client) throws IOException {
+        client.get(g -> g.index("products").id("1"), Map.class);
+    }
+}